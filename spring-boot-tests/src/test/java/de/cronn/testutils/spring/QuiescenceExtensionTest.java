@@ -0,0 +1,177 @@
+package de.cronn.testutils.spring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Import({ ExecutorQuiescenceTracker.class, QuiescenceExtensionTest.ExecutorConfig.class })
+@ExtendWith(SpringExtension.class)
+class QuiescenceExtensionTest {
+
+	@RegisterExtension
+	private QuiescenceExtension quiescenceExtension = new QuiescenceExtension().withAwaitAfterEach(Duration.ofSeconds(10));
+
+	@Autowired
+	private ExecutorService workerPool;
+
+	@Autowired
+	private ExecutorService discardingPool;
+
+	@Autowired
+	private ExecutorService drainedPool;
+
+	@Autowired
+	private ScheduledExecutorService scheduler;
+
+	@Test
+	void awaitQuiescenceReturnsWhenAllTasksCompleted() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> future = workerPool.submit(() -> {
+			release.await();
+			return "done";
+		});
+
+		release.countDown();
+		quiescenceExtension.awaitQuiescence(Duration.ofSeconds(10));
+
+		Assertions.assertThat(future).isDone();
+	}
+
+	@Test
+	void awaitQuiescenceReportsBusyExecutorOnTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		workerPool.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		try {
+			Assertions.assertThatThrownBy(() -> quiescenceExtension.awaitQuiescence(Duration.ofMillis(100)))
+				.isInstanceOf(AssertionFailedError.class)
+				.hasMessage("Executors did not become idle within 100 ms: workerPool (1 tasks in flight)");
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void cancelledTaskIsNotInFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		workerPool.submit(() -> {
+			release.await();
+			return null;
+		});
+		Future<?> queuedTask = workerPool.submit(() -> {});
+
+		queuedTask.cancel(false);
+		release.countDown();
+
+		quiescenceExtension.awaitQuiescence(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void discardedTaskIsNotInFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		discardingPool.submit(() -> {
+			release.await();
+			return null;
+		});
+		discardingPool.execute(() -> {});
+		discardingPool.submit(() -> "discards the queued task");
+
+		release.countDown();
+
+		quiescenceExtension.awaitQuiescence(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void drainedTaskIsNotInFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		drainedPool.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		drainedPool.submit(() -> "queued");
+
+		Assertions.assertThat(drainedPool.shutdownNow()).hasSize(1);
+
+		quiescenceExtension.awaitQuiescence(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void invokeAllIsTracked() throws Exception {
+		CountDownLatch neverReleased = new CountDownLatch(1);
+		AtomicReference<Throwable> busyFailure = new AtomicReference<>();
+		Callable<String> busyTask = () -> {
+			busyFailure.set(Assertions.catchThrowable(() -> quiescenceExtension.awaitQuiescence(Duration.ofMillis(10))));
+			neverReleased.await();
+			return "released";
+		};
+		Callable<String> neverStartedTask = () -> "started";
+
+		List<Future<String>> futures = workerPool.invokeAll(List.of(busyTask, neverStartedTask), 500, TimeUnit.MILLISECONDS);
+
+		Assertions.assertThat(futures).allMatch(Future::isCancelled);
+		Assertions.assertThat(busyFailure.get())
+			.hasMessage("Executors did not become idle within 10 ms: workerPool (2 tasks in flight)");
+		quiescenceExtension.awaitQuiescence(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void schedulersAreNotTracked() {
+		Assertions.assertThat(AopUtils.isAopProxy(workerPool)).isTrue();
+		Assertions.assertThat(AopUtils.isAopProxy(scheduler)).isFalse();
+	}
+
+	@Configuration
+	static class ExecutorConfig {
+
+		@Bean(destroyMethod = "shutdown")
+		ExecutorService workerPool() {
+			return Executors.newSingleThreadExecutor();
+		}
+
+		@Bean(destroyMethod = "shutdown")
+		ExecutorService discardingPool() {
+			return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.DiscardOldestPolicy());
+		}
+
+		@Bean(destroyMethod = "shutdown")
+		ExecutorService drainedPool() {
+			return Executors.newSingleThreadExecutor();
+		}
+
+		@Bean(destroyMethod = "shutdown")
+		ScheduledExecutorService scheduler() {
+			return Executors.newSingleThreadScheduledExecutor();
+		}
+
+	}
+}
@@ -0,0 +1,121 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Variant of {@link ConcurrentTest} for non-blocking code. All operations are started from the calling thread, which
+ * also asserts each result as soon as its {@link CompletionStage} completes, so no thread is tied up waiting for an
+ * operation to complete.
+ */
+public class AsyncConcurrentTest<T> {
+
+	private static final int TIMEOUT_MILLIS = 30_000;
+	private int concurrencyLevel = 10;
+	private int maxInFlight = Integer.MAX_VALUE;
+	private final IndexedAsyncCallable<T> task;
+	private boolean latencyRecording;
+
+	public AsyncConcurrentTest(IndexedAsyncCallable<T> task) {
+		this.task = task;
+	}
+
+	public static <T> AsyncConcurrentTest<T> create(IndexedAsyncCallable<T> task) {
+		return new AsyncConcurrentTest<>(task);
+	}
+
+	/**
+	 * The total number of operations to start.
+	 */
+	public AsyncConcurrentTest<T> withConcurrencyLevel(int concurrencyLevel) {
+		this.concurrencyLevel = concurrencyLevel;
+		return this;
+	}
+
+	/**
+	 * Limits the number of operations whose result has not been asserted yet. A new operation is only started once the
+	 * result of a previous one has been asserted.
+	 */
+	public AsyncConcurrentTest<T> withMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+		}
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	/**
+	 * Records the time from starting each operation until its {@link CompletionStage} completes.
+	 */
+	public AsyncConcurrentTest<T> withLatencyRecording() {
+		this.latencyRecording = true;
+		return this;
+	}
+
+	public ConcurrentTestReport runAndAssertEachResult(Consumer<T> assertion) throws InterruptedException, ExecutionException {
+		TaskMetrics taskMetrics = new TaskMetrics(latencyRecording, false);
+		BlockingQueue<Outcome<T>> completions = new LinkedBlockingQueue<>();
+		long startNanos = System.nanoTime();
+		long lastStartNanos = startNanos;
+		int started = 0;
+		int asserted = 0;
+		while (asserted < concurrencyLevel) {
+			if (started < concurrencyLevel && started - asserted < maxInFlight) {
+				lastStartNanos = System.nanoTime();
+				start(started++, lastStartNanos, taskMetrics, completions);
+			} else {
+				Outcome<T> outcome = completions.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (outcome == null) {
+					Assertions.fail(String.format("No operation completed within %d ms, %d of %d operations completed",
+						TIMEOUT_MILLIS, asserted, concurrencyLevel));
+				}
+				assertion.accept(outcome.get());
+				asserted++;
+			}
+		}
+		long endNanos = System.nanoTime();
+		return new ConcurrentTestReport(concurrencyLevel, Duration.ofNanos(endNanos - startNanos),
+			Duration.ofNanos(lastStartNanos - startNanos), taskMetrics, null);
+	}
+
+	private void start(int index, long startNanos, TaskMetrics taskMetrics, BlockingQueue<Outcome<T>> completions) {
+		CompletionStage<T> completionStage;
+		try {
+			completionStage = task.call(index);
+		} catch (Exception e) {
+			completions.add(new Outcome<>(null, e));
+			return;
+		}
+		completionStage.whenComplete((result, failure) -> {
+			taskMetrics.recordTask(System.nanoTime() - startNanos, 0, 0);
+			completions.add(new Outcome<>(result, failure));
+		});
+	}
+
+	private record Outcome<T>(T result, Throwable failure) {
+
+		T get() throws ExecutionException {
+			if (failure instanceof CompletionException && failure.getCause() != null) {
+				throw new ExecutionException(failure.getCause());
+			}
+			if (failure != null) {
+				throw new ExecutionException(failure);
+			}
+			return result;
+		}
+	}
+
+	@FunctionalInterface
+	public interface IndexedAsyncCallable<T> {
+
+		CompletionStage<T> call(int index) throws Exception;
+	}
+}
@@ -1,21 +1,60 @@
 package de.cronn.testutils;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ConcurrentTest<T> {
 
+	private static final Logger log = LoggerFactory.getLogger(ConcurrentTest.class);
+
 	private static final int TIMEOUT_MILLIS = 30_000;
 	private int concurrencyLevel = 10;
 	private final IndexedCallable<T> task;
 	private String threadNamePrefix = ConcurrentTest.class.getSimpleName();
+	private boolean virtualThreads;
+	private boolean startGate;
+	private boolean latencyRecording;
+	private boolean resourceAccounting;
+	private Duration cpuTimeBudgetPerCall;
+	private Long allocationBudgetPerCall;
+	private Duration contentionSamplingInterval;
+	private boolean gcPauseRecording;
+	private boolean flightRecording;
+	private Path flightRecordingOutputDirectory = FlightRecording.DEFAULT_OUTPUT_DIRECTORY;
+	private String flightRecordingName;
+	private Duration flightRecordingLatencyThreshold;
+	private boolean failFast;
+	private int warmUpIterations;
+	private Double steadyStateCoefficientOfVariation;
+	private int steadyStateWindow;
+	private int maxWarmUpIterations;
+	private ExecutorService executorService;
 
 	public ConcurrentTest(IndexedCallable<T> task) {
 		this.task = task;
@@ -39,26 +78,735 @@ public class ConcurrentTest<T> {
 		return withThreadNamePrefix(clazz.getSimpleName());
 	}
 
-	public void runAndAssertEachResult(Consumer<T> assertion) throws InterruptedException, ExecutionException {
-		ThreadFactory threadFactory = new NamedThreadFactory(threadNamePrefix);
-		ExecutorService executorService = Executors.newFixedThreadPool(concurrencyLevel, threadFactory);
+	public ConcurrentTest<T> withVirtualThreads() {
+		this.virtualThreads = true;
+		return checkOptionConflicts();
+	}
+
+	/**
+	 * Runs the tasks on the given executor, for example the class-scoped pool of an {@link ExecutorServiceExtension},
+	 * instead of creating a thread pool per run. The executor is not shut down, but every run waits for all of its tasks.
+	 * The executor must provide at least {@code concurrencyLevel} threads if {@link #withStartGate()} is used.
+	 * Not supported in combination with {@link #withContentionProfiling()}.
+	 */
+	public ConcurrentTest<T> withExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+		return checkOptionConflicts();
+	}
+
+	public ConcurrentTest<T> withStartGate() {
+		this.startGate = true;
+		return this;
+	}
+
+	/**
+	 * On the first failing task or assertion, cancels and interrupts all pending tasks instead of waiting for them.
+	 * Failures of other tasks that already completed are added as suppressed exceptions.
+	 */
+	public ConcurrentTest<T> withFailFast() {
+		this.failFast = true;
+		return this;
+	}
+
+	/**
+	 * Before the measured run, runs the given number of iterations of {@code concurrencyLevel} calls each on the same
+	 * executor, so that class loading, JIT compilation and thread creation do not distort the measurements.
+	 * Warm-up calls receive negative indices ({@code -1}, {@code -2}, ...) and their results and timings are discarded.
+	 */
+	public ConcurrentTest<T> withWarmUpIterations(int warmUpIterations) {
+		if (warmUpIterations < 0) {
+			throw new IllegalArgumentException("Warm-up iterations must not be negative: " + warmUpIterations);
+		}
+		this.warmUpIterations = warmUpIterations;
+		return this;
+	}
+
+	/**
+	 * Keeps warming up until the coefficient of variation of the durations of the last {@code window} warm-up
+	 * iterations drops below {@code maxCoefficientOfVariation}, but for at most {@code maxIterations} iterations.
+	 *
+	 * @see #withWarmUpIterations(int)
+	 */
+	public ConcurrentTest<T> withWarmUpUntilSteadyState(double maxCoefficientOfVariation, int window, int maxIterations) {
+		if (maxCoefficientOfVariation <= 0 || window < 2 || maxIterations < window) {
+			throw new IllegalArgumentException(String.format("Invalid steady-state detection: coefficient of variation %s, window %d, max iterations %d",
+				maxCoefficientOfVariation, window, maxIterations));
+		}
+		this.steadyStateCoefficientOfVariation = maxCoefficientOfVariation;
+		this.steadyStateWindow = window;
+		this.maxWarmUpIterations = maxIterations;
+		return this;
+	}
+
+	public ConcurrentTest<T> withLatencyRecording() {
+		this.latencyRecording = true;
+		return this;
+	}
+
+	/**
+	 * Measures the CPU time and the allocated bytes of every call of the task.
+	 * Not supported in combination with {@link #withVirtualThreads()}.
+	 */
+	public ConcurrentTest<T> withResourceAccounting() {
+		this.resourceAccounting = true;
+		return checkOptionConflicts();
+	}
+
+	public ConcurrentTest<T> withCpuTimeBudgetPerCall(Duration cpuTimeBudgetPerCall) {
+		this.cpuTimeBudgetPerCall = cpuTimeBudgetPerCall;
+		return withResourceAccounting();
+	}
+
+	public ConcurrentTest<T> withAllocationBudgetPerCall(long allocatedBytesPerCall) {
+		this.allocationBudgetPerCall = allocatedBytesPerCall;
+		return withResourceAccounting();
+	}
+
+	public ConcurrentTest<T> withContentionProfiling() {
+		return withContentionProfiling(Duration.ofMillis(10));
+	}
+
+	/**
+	 * Enables thread contention monitoring during the run and periodically samples which locks the worker threads are
+	 * blocked on and which threads hold them. Not supported in combination with {@link #withVirtualThreads()}.
+	 */
+	public ConcurrentTest<T> withContentionProfiling(Duration samplingInterval) {
+		this.contentionSamplingInterval = samplingInterval;
+		return checkOptionConflicts();
+	}
+
+	private ConcurrentTest<T> checkOptionConflicts() {
+		if (resourceAccounting && virtualThreads) {
+			throw new IllegalStateException("Resource accounting is not supported for virtual threads");
+		}
+		if (contentionSamplingInterval != null && virtualThreads) {
+			throw new IllegalStateException("Contention profiling is not supported for virtual threads");
+		}
+		if (contentionSamplingInterval != null && executorService != null) {
+			throw new IllegalStateException("Contention profiling is not supported with an external executor service");
+		}
+		return this;
+	}
+
+	/**
+	 * Records GC pauses during the run and which tasks overlapped them, so that tail latencies can be explained by or
+	 * asserted without GC pauses. See {@link ConcurrentTestReport#getGcReport()}.
+	 */
+	public ConcurrentTest<T> withGcPauseRecording() {
+		this.gcPauseRecording = true;
+		return this;
+	}
+
+	/**
+	 * Records the run with JDK Flight Recorder using the {@code profile} configuration. The recording is discarded if
+	 * the run succeeds and written to {@code build/<threadNamePrefix>_<timestamp>.jfr} if a task, an assertion or a
+	 * resource budget fails.
+	 *
+	 * @see #withFlightRecordingNameFromTest(TestInfo)
+	 * @see #withFlightRecordingOutputDirectory(Path)
+	 */
+	public ConcurrentTest<T> withFlightRecording() {
+		this.flightRecording = true;
+		return this;
+	}
+
+	/**
+	 * Like {@link #withFlightRecording()}, but also writes the recording if the latency of any task exceeds the given threshold.
+	 */
+	public ConcurrentTest<T> withFlightRecording(Duration latencyThreshold) {
+		this.flightRecordingLatencyThreshold = latencyThreshold;
+		this.latencyRecording = true;
+		return withFlightRecording();
+	}
+
+	/**
+	 * Names flight recordings {@code <name>_<timestamp>.jfr} instead of using the thread name prefix.
+	 */
+	public ConcurrentTest<T> withFlightRecordingName(String flightRecordingName) {
+		this.flightRecordingName = flightRecordingName;
+		return this;
+	}
+
+	/**
+	 * Names flight recordings after the given test, like {@link FlightRecordingExtension}:
+	 * {@code <TestClass>_<testMethod>_<timestamp>.jfr}.
+	 */
+	public ConcurrentTest<T> withFlightRecordingNameFromTest(TestInfo testInfo) {
+		return withFlightRecordingName(ExecutorServiceExtension.TestNameUtils.getTestName(testInfo.getTestClass().orElseThrow(),
+			testInfo.getTestMethod().orElseThrow().getName()));
+	}
+
+	/**
+	 * Writes flight recordings to the given directory instead of {@code build}.
+	 */
+	public ConcurrentTest<T> withFlightRecordingOutputDirectory(Path flightRecordingOutputDirectory) {
+		this.flightRecordingOutputDirectory = flightRecordingOutputDirectory;
+		return this;
+	}
+
+	public ConcurrentTestReport runAndAssertEachResult(Consumer<T> assertion) throws InterruptedException, ExecutionException {
+		return runBurst(callable -> callable, assertion);
+	}
+
+	/**
+	 * Like {@link #runAndCollect(int, Collector)} with {@code concurrencyLevel} calls, so that every worker calls the
+	 * task about once.
+	 */
+	public <A, R> R runAndCollect(Collector<? super T, A, R> collector) throws InterruptedException, ExecutionException {
+		return runAndCollect(concurrencyLevel, collector);
+	}
+
+	/**
+	 * Calls the task with the indices {@code 0} to {@code calls - 1} on {@code concurrencyLevel} workers and reduces the
+	 * results with the given collector while the tasks are running.
+	 * Every worker takes the next index from a shared counter and accumulates the results into a container of its own.
+	 * The containers are combined once all workers are done, so memory stays proportional to the number of workers
+	 * instead of the number of calls, and the calling thread only waits for the workers.
+	 */
+	public <A, R> R runAndCollect(int calls, Collector<? super T, A, R> collector) throws InterruptedException, ExecutionException {
+		if (calls <= 0) {
+			throw new IllegalArgumentException("Calls must be positive: " + calls);
+		}
+		int workers = Math.min(concurrencyLevel, calls);
+		RunState runState = new RunState(startGate ? workers : 0, createTaskMetrics(latencyRecording), createContentionProfiler(),
+			createGcPauseRecorder());
+		ExecutorService executorService = createExecutorService(workers, runState.getContentionProfiler());
+		warmUp(executorService);
+		AtomicLong nextIndex = new AtomicLong();
+		List<Future<A>> workerFutures = new ArrayList<>(workers);
+		runState.startContentionProfiler();
+		runState.startGcPauseRecorder();
+		FlightRecording flightRecording = startFlightRecording();
+		A result = null;
 		try {
-			CompletionService<T> completionService = new ExecutorCompletionService<>(executorService);
+			for (int worker = 0; worker < workers; worker++) {
+				workerFutures.add(executorService.submit(() -> collect(collector, runState, nextIndex, calls)));
+			}
+			runState.openStartGate();
+			for (Future<A> workerFuture : workerFutures) {
+				A container = workerFuture.get();
+				result = result == null ? container : collector.combiner().apply(result, container);
+			}
+			dumpFlightRecordingIfLatencyThresholdExceeded(flightRecording, runState.getTaskMetrics());
+			// before the recording is closed, so that a run exceeding its budgets is recorded like any other failure
+			assertResourceBudgets(runState.getTaskMetrics());
+		} catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
+			if (failFast) {
+				nextIndex.set(calls);
+				cancelWorkers(workerFutures, e);
+			}
+			dumpFlightRecordingOnFailure(flightRecording, e);
+			throw e;
+		} finally {
+			closeFlightRecording(flightRecording);
+			runState.releaseStartGate();
+			runState.stopContentionProfiler();
+			runState.stopGcPauseRecorder();
+			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+		}
+		if (collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+			@SuppressWarnings("unchecked")
+			R identity = (R) result;
+			return identity;
+		}
+		return collector.finisher().apply(result);
+	}
 
+	private <A> A collect(Collector<? super T, A, ?> collector, RunState runState, AtomicLong nextIndex, int calls) throws Exception {
+		A container = collector.supplier().get();
+		BiConsumer<A, ? super T> accumulator = collector.accumulator();
+		runState.awaitStartGate();
+		try {
+			for (long index = nextIndex.getAndIncrement(); index < calls; index = nextIndex.getAndIncrement()) {
+				long taskStartNanos = System.nanoTime();
+				runState.recordStart(taskStartNanos);
+				accumulator.accept(container, call((int) index, runState, taskStartNanos));
+			}
+		} catch (Exception | Error e) {
+			if (failFast) {
+				// the caller may still be waiting for another worker, so stop handing out indices right away
+				nextIndex.set(calls);
+			}
+			throw e;
+		}
+		return container;
+	}
+
+	private void cancelWorkers(List<? extends Future<?>> workerFutures, Throwable failure) {
+		for (Future<?> workerFuture : workerFutures) {
+			workerFuture.cancel(true);
+		}
+		for (Future<?> workerFuture : workerFutures) {
+			if (workerFuture.state() == Future.State.FAILED && workerFuture.exceptionNow() != failure
+				&& workerFuture.exceptionNow() != failure.getCause()) {
+				failure.addSuppressed(workerFuture.exceptionNow());
+			}
+		}
+		log.debug("Cancelled the workers of '{}' after failure", threadNamePrefix);
+	}
+
+	private <V> ConcurrentTestReport runBurst(Function<Callable<T>, Callable<V>> resultHandler, Consumer<V> assertion)
+		throws InterruptedException, ExecutionException {
+		RunState runState = new RunState(startGate ? concurrencyLevel : 0, createTaskMetrics(latencyRecording), createContentionProfiler(),
+			createGcPauseRecorder());
+		ExecutorService executorService = createExecutorService(concurrencyLevel, runState.getContentionProfiler());
+		warmUp(executorService);
+		PendingTasks<V> pendingTasks = new PendingTasks<>(executorService);
+		runState.startContentionProfiler();
+		runState.startGcPauseRecorder();
+		FlightRecording flightRecording = startFlightRecording();
+		long startNanos = System.nanoTime();
+		long endNanos;
+		ContentionReport contentionReport;
+		GcReport gcReport;
+		try {
 			for (int i = 0; i < concurrencyLevel; i++) {
-				completionService.submit(task.toCallable(i));
+				pendingTasks.submit(resultHandler.apply(toCallable(i, runState)));
+			}
+
+			runState.openStartGate();
+			if (startGate) {
+				startNanos = System.nanoTime();
 			}
 
 			for (int i = 0; i < concurrencyLevel; i++) {
-				T result = completionService.take().get();
+				V result = pendingTasks.take().get();
 				assertion.accept(result);
 			}
+			endNanos = System.nanoTime();
+			dumpFlightRecordingIfLatencyThresholdExceeded(flightRecording, runState.getTaskMetrics());
+			// before the recording is closed, so that a run exceeding its budgets is recorded like any other failure
+			assertResourceBudgets(runState.getTaskMetrics());
+		} catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
+			cancelPendingTasksIfFailFast(pendingTasks, e);
+			dumpFlightRecordingOnFailure(flightRecording, e);
+			throw e;
+		} finally {
+			closeFlightRecording(flightRecording);
+			runState.releaseStartGate();
+			contentionReport = runState.stopContentionProfiler();
+			gcReport = runState.stopGcPauseRecorder();
+			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+		}
+		return new ConcurrentTestReport(concurrencyLevel, Duration.ofNanos(endNanos - startNanos), runState.getStartSkew(),
+			runState.getTaskMetrics(), contentionReport, gcReport);
+	}
+
+	/**
+	 * Keeps invoking the task with increasing indices at the given rate for the given duration, independent of how
+	 * long the previous tasks take (open-loop load). At most {@code concurrencyLevel} tasks run at the same time
+	 * unless virtual threads are used.
+	 * <p>
+	 * Latencies are always recorded and measured from the <em>intended</em> start time of each task, so that
+	 * queueing caused by a slow system under test is not hidden (coordinated omission).
+	 */
+	public ConcurrentTestReport runAtFixedRateAndAssertEachResult(double tasksPerSecond, Duration duration, Consumer<T> assertion)
+		throws InterruptedException, ExecutionException {
+		if (tasksPerSecond <= 0) {
+			throw new IllegalArgumentException("Rate must be positive: " + tasksPerSecond);
+		}
+		long intervalNanos = Math.max(1, Math.round(1e9 / tasksPerSecond));
+		long taskCount = duration.toNanos() / intervalNanos;
+		if (taskCount <= 0 || taskCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("Cannot run %s at %.1f tasks/s", duration, tasksPerSecond));
+		}
+
+		RunState runState = new RunState(0, createTaskMetrics(true), createContentionProfiler(), createGcPauseRecorder());
+		ExecutorService executorService = createExecutorService(concurrencyLevel, runState.getContentionProfiler());
+		warmUp(executorService);
+		PendingTasks<T> pendingTasks = new PendingTasks<>(executorService);
+		runState.startContentionProfiler();
+		runState.startGcPauseRecorder();
+		FlightRecording flightRecording = startFlightRecording();
+		long startNanos = System.nanoTime();
+		long endNanos;
+		ContentionReport contentionReport;
+		GcReport gcReport;
+		try {
+			int completedTasks = 0;
+
+			for (int i = 0; i < taskCount; i++) {
+				long intendedStartNanos = startNanos + i * intervalNanos;
+				completedTasks += assertCompletedResults(pendingTasks, assertion, intendedStartNanos);
+				pendingTasks.submit(toScheduledCallable(i, runState, intendedStartNanos));
+			}
+
+			for (; completedTasks < taskCount; completedTasks++) {
+				T result = pendingTasks.take().get();
+				assertion.accept(result);
+			}
+			endNanos = System.nanoTime();
+			dumpFlightRecordingIfLatencyThresholdExceeded(flightRecording, runState.getTaskMetrics());
+			// before the recording is closed, so that a run exceeding its budgets is recorded like any other failure
+			assertResourceBudgets(runState.getTaskMetrics());
+		} catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
+			cancelPendingTasksIfFailFast(pendingTasks, e);
+			dumpFlightRecordingOnFailure(flightRecording, e);
+			throw e;
+		} finally {
+			closeFlightRecording(flightRecording);
+			contentionReport = runState.stopContentionProfiler();
+			gcReport = runState.stopGcPauseRecorder();
+			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+		}
+		return new ConcurrentTestReport((int) taskCount, Duration.ofNanos(endNanos - startNanos), tasksPerSecond,
+			runState.getTaskMetrics(), contentionReport, gcReport);
+	}
+
+	/**
+	 * Runs the task at increasing concurrency levels to measure how its throughput scales.
+	 * At every level, each round releases all workers at once and every worker calls the task
+	 * {@link ScalabilitySweep#withCallsPerWorker(int) callsPerWorker} times with distinct indices.
+	 * The results of the task are discarded.
+	 */
+	public ScalabilityReport runScalabilitySweep(ScalabilitySweep sweep) throws InterruptedException, ExecutionException {
+		List<Integer> concurrencyLevels = sweep.getConcurrencyLevels();
+		List<Double> throughputs = new ArrayList<>();
+		ExecutorService executorService = createExecutorService(sweep.getMaxConcurrencyLevel(), null);
+		try {
+			int nextIndex = 0;
+			for (int concurrencyLevel : concurrencyLevels) {
+				int callsPerRound = Math.multiplyExact(concurrencyLevel, sweep.getCallsPerWorker());
+				for (int round = 0; round < sweep.getWarmUpRounds(); round++) {
+					runSweepRound(executorService, concurrencyLevel, sweep.getCallsPerWorker(), nextIndex);
+					nextIndex = Math.addExact(nextIndex, callsPerRound);
+				}
+				long measuredNanos = 0;
+				for (int round = 0; round < sweep.getMeasuredRounds(); round++) {
+					measuredNanos += runSweepRound(executorService, concurrencyLevel, sweep.getCallsPerWorker(), nextIndex);
+					nextIndex = Math.addExact(nextIndex, callsPerRound);
+				}
+				double throughput = (double) callsPerRound * sweep.getMeasuredRounds() / (measuredNanos / 1e9);
+				log.debug("Throughput of '{}' at concurrency level {}: {} calls/s", threadNamePrefix, concurrencyLevel, throughput);
+				throughputs.add(throughput);
+			}
+		} finally {
+			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+		}
+		return new ScalabilityReport(concurrencyLevels, throughputs);
+	}
+
+	private long runSweepRound(ExecutorService executorService, int concurrencyLevel, int callsPerWorker, int firstIndex)
+		throws InterruptedException, ExecutionException {
+		RunState runState = new RunState(concurrencyLevel, new TaskMetrics(false, false), null, null);
+		List<Future<Void>> futures = new ArrayList<>();
+		try {
+			for (int worker = 0; worker < concurrencyLevel; worker++) {
+				int firstIndexOfWorker = firstIndex + worker * callsPerWorker;
+				futures.add(executorService.submit(() -> {
+					runState.awaitStartGate();
+					for (int call = 0; call < callsPerWorker; call++) {
+						task.call(firstIndexOfWorker + call);
+					}
+					return null;
+				}));
+			}
+			runState.openStartGate();
+			long startNanos = System.nanoTime();
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			return System.nanoTime() - startNanos;
 		} finally {
+			runState.releaseStartGate();
+		}
+	}
+
+	private void warmUp(ExecutorService executorService) throws InterruptedException, ExecutionException {
+		if (warmUpIterations == 0 && steadyStateCoefficientOfVariation == null) {
+			return;
+		}
+		try {
+			int iterationLimit = steadyStateCoefficientOfVariation != null ? Math.max(warmUpIterations, maxWarmUpIterations) : warmUpIterations;
+			List<Long> iterationNanos = new ArrayList<>();
+			for (int iteration = 0; iteration < iterationLimit; iteration++) {
+				iterationNanos.add(runWarmUpIteration(executorService, iteration));
+				if (iteration + 1 >= warmUpIterations && isSteadyState(iterationNanos)) {
+					log.debug("Reached steady state of '{}' after {} warm-up iterations", threadNamePrefix, iteration + 1);
+					return;
+				}
+			}
+			if (steadyStateCoefficientOfVariation != null) {
+				log.warn("'{}' did not reach a steady state within {} warm-up iterations", threadNamePrefix, iterationLimit);
+			}
+		} catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
 			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+			throw e;
+		}
+	}
+
+	private long runWarmUpIteration(ExecutorService executorService, int iteration) throws InterruptedException, ExecutionException {
+		int firstIndex = Math.multiplyExact(iteration, concurrencyLevel);
+		List<Callable<T>> calls = new ArrayList<>();
+		for (int i = 0; i < concurrencyLevel; i++) {
+			int index = -Math.addExact(firstIndex, i) - 1;
+			calls.add(() -> task.call(index));
+		}
+		long startNanos = System.nanoTime();
+		for (Future<T> future : executorService.invokeAll(calls)) {
+			future.get();
+		}
+		return System.nanoTime() - startNanos;
+	}
+
+	private boolean isSteadyState(List<Long> iterationNanos) {
+		if (steadyStateCoefficientOfVariation == null) {
+			return false;
+		}
+		if (iterationNanos.size() < steadyStateWindow) {
+			return false;
+		}
+		List<Long> window = iterationNanos.subList(iterationNanos.size() - steadyStateWindow, iterationNanos.size());
+		double mean = window.stream().mapToLong(Long::longValue).average().orElseThrow();
+		double variance = window.stream().mapToDouble(nanos -> (nanos - mean) * (nanos - mean)).sum() / (window.size() - 1);
+		return Math.sqrt(variance) / mean <= steadyStateCoefficientOfVariation;
+	}
+
+	private int assertCompletedResults(PendingTasks<T> pendingTasks, Consumer<T> assertion, long untilNanos)
+		throws InterruptedException, ExecutionException {
+		int completedTasks = 0;
+		for (long remainingNanos = untilNanos - System.nanoTime(); remainingNanos > 0; remainingNanos = untilNanos - System.nanoTime()) {
+			Future<T> future = pendingTasks.poll(remainingNanos);
+			if (future != null) {
+				assertion.accept(future.get());
+				completedTasks++;
+			}
+		}
+		return completedTasks;
+	}
+
+	private void cancelPendingTasksIfFailFast(PendingTasks<?> pendingTasks, Throwable failure) {
+		if (failFast) {
+			int cancelledTasks = pendingTasks.cancelAll(failure);
+			log.debug("Cancelled {} pending tasks of '{}' after failure", cancelledTasks, threadNamePrefix);
+		}
+	}
+
+	private Callable<T> toCallable(int index, RunState runState) {
+		return () -> {
+			runState.awaitStartGate();
+			long taskStartNanos = System.nanoTime();
+			runState.recordStart(taskStartNanos);
+			return call(index, runState, taskStartNanos);
+		};
+	}
+
+	private Callable<T> toScheduledCallable(int index, RunState runState, long intendedStartNanos) {
+		return () -> call(index, runState, intendedStartNanos);
+	}
+
+	private T call(int index, RunState runState, long latencyStartNanos) throws Exception {
+		TaskMetrics taskMetrics = runState.getTaskMetrics();
+		long cpuTimeBefore = taskMetrics.currentThreadCpuTime();
+		long allocatedBytesBefore = taskMetrics.currentThreadAllocatedBytes();
+		T result = task.call(index);
+		long endNanos = System.nanoTime();
+		taskMetrics.recordTask(endNanos - latencyStartNanos, cpuTimeBefore, allocatedBytesBefore);
+		runState.recordTaskInterval(latencyStartNanos, endNanos);
+		return result;
+	}
+
+	private TaskMetrics createTaskMetrics(boolean latencyRecording) {
+		return new TaskMetrics(latencyRecording, resourceAccounting);
+	}
+
+	private void assertResourceBudgets(TaskMetrics taskMetrics) {
+		if (cpuTimeBudgetPerCall != null && taskMetrics.getCpuTimes().getMax() > cpuTimeBudgetPerCall.toNanos()) {
+			Assertions.fail(String.format("A call of '%s' used %s of CPU time, exceeding the budget of %s per call",
+				threadNamePrefix, Duration.ofNanos(taskMetrics.getCpuTimes().getMax()), cpuTimeBudgetPerCall));
+		}
+		if (allocationBudgetPerCall != null && taskMetrics.getAllocatedBytes().getMax() > allocationBudgetPerCall) {
+			Assertions.fail(String.format("A call of '%s' allocated %d bytes, exceeding the budget of %d bytes per call",
+				threadNamePrefix, taskMetrics.getAllocatedBytes().getMax(), allocationBudgetPerCall));
+		}
+	}
+
+	private ContentionProfiler createContentionProfiler() {
+		if (contentionSamplingInterval == null) {
+			return null;
+		}
+		return new ContentionProfiler(threadNamePrefix, contentionSamplingInterval);
+	}
+
+	private FlightRecording startFlightRecording() {
+		if (!flightRecording) {
+			return null;
+		}
+		String name = flightRecordingName != null ? flightRecordingName : threadNamePrefix;
+		return FlightRecording.start(FlightRecording.DEFAULT_CONFIGURATION, flightRecordingOutputDirectory, name);
+	}
+
+	private void dumpFlightRecordingIfLatencyThresholdExceeded(FlightRecording flightRecording, TaskMetrics taskMetrics) {
+		if (flightRecording != null && flightRecordingLatencyThreshold != null
+			&& taskMetrics.getLatencies().getMax() > flightRecordingLatencyThreshold.toNanos()) {
+			flightRecording.dump(String.format("Latency of '%s' exceeded %s", threadNamePrefix,
+				ConcurrentTestReport.formatNanos(flightRecordingLatencyThreshold.toNanos())));
+		}
+	}
+
+	private void dumpFlightRecordingOnFailure(FlightRecording flightRecording, Throwable failure) {
+		if (flightRecording != null) {
+			try {
+				flightRecording.dump("Run of '" + threadNamePrefix + "' failed");
+			} catch (RuntimeException e) {
+				failure.addSuppressed(e);
+			}
+		}
+	}
+
+	private static void closeFlightRecording(FlightRecording flightRecording) {
+		if (flightRecording != null) {
+			flightRecording.close();
+		}
+	}
+
+	private GcPauseRecorder createGcPauseRecorder() {
+		return gcPauseRecording ? new GcPauseRecorder() : null;
+	}
+
+	private ExecutorService createExecutorService(int poolSize, ContentionProfiler contentionProfiler) {
+		if (executorService != null) {
+			return new LeasedExecutorService(executorService, threadNamePrefix, threadNamePrefix);
+		}
+		if (virtualThreads) {
+			ThreadFactory threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+			return Executors.newThreadPerTaskExecutor(threadFactory);
+		}
+		ThreadFactory threadFactory = new NamedThreadFactory(threadNamePrefix);
+		if (contentionProfiler != null) {
+			threadFactory = contentionProfiler.trackThreads(threadFactory);
+		}
+		return Executors.newFixedThreadPool(poolSize, threadFactory);
+	}
+
+	private static class PendingTasks<T> {
+		private final CompletionService<T> completionService;
+		private final Set<Future<T>> futures = new HashSet<>();
+
+		PendingTasks(ExecutorService executorService) {
+			this.completionService = new ExecutorCompletionService<>(executorService);
+		}
+
+		void submit(Callable<T> callable) {
+			futures.add(completionService.submit(callable));
+		}
+
+		Future<T> take() throws InterruptedException {
+			Future<T> future = completionService.take();
+			futures.remove(future);
+			return future;
+		}
+
+		Future<T> poll(long timeoutNanos) throws InterruptedException {
+			Future<T> future = completionService.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+			if (future != null) {
+				futures.remove(future);
+			}
+			return future;
+		}
+
+		int cancelAll(Throwable failure) {
+			int cancelledTasks = 0;
+			for (Future<T> future : futures) {
+				if (future.cancel(true)) {
+					cancelledTasks++;
+				}
+			}
+			for (Future<T> future : futures) {
+				if (future.state() == Future.State.FAILED && future.exceptionNow() != failure) {
+					failure.addSuppressed(future.exceptionNow());
+				}
+			}
+			futures.clear();
+			return cancelledTasks;
+		}
+	}
+
+	private static class RunState {
+		private final int gatedTasks;
+		private final CountDownLatch parkedTasks;
+		private final CountDownLatch startGate = new CountDownLatch(1);
+		private final LongAccumulator firstStartNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		private final LongAccumulator lastStartNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+		private final TaskMetrics taskMetrics;
+		private final ContentionProfiler contentionProfiler;
+		private final GcPauseRecorder gcPauseRecorder;
+
+		RunState(int gatedTasks, TaskMetrics taskMetrics, ContentionProfiler contentionProfiler, GcPauseRecorder gcPauseRecorder) {
+			this.gatedTasks = gatedTasks;
+			this.parkedTasks = new CountDownLatch(gatedTasks);
+			if (gatedTasks == 0) {
+				startGate.countDown();
+			}
+			this.taskMetrics = taskMetrics;
+			this.contentionProfiler = contentionProfiler;
+			this.gcPauseRecorder = gcPauseRecorder;
+		}
+
+		void awaitStartGate() throws InterruptedException {
+			parkedTasks.countDown();
+			startGate.await();
+		}
+
+		void openStartGate() throws InterruptedException {
+			if (!parkedTasks.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				Assertions.fail(String.format("Only %d of %d tasks reached the start gate within %d ms",
+					gatedTasks - parkedTasks.getCount(), gatedTasks, TIMEOUT_MILLIS));
+			}
+			startGate.countDown();
+		}
+
+		void releaseStartGate() {
+			startGate.countDown();
+		}
+
+		void recordStart(long nanos) {
+			firstStartNanos.accumulate(nanos);
+			lastStartNanos.accumulate(nanos);
+		}
+
+		TaskMetrics getTaskMetrics() {
+			return taskMetrics;
+		}
+
+		ContentionProfiler getContentionProfiler() {
+			return contentionProfiler;
+		}
+
+		void startContentionProfiler() {
+			if (contentionProfiler != null) {
+				contentionProfiler.start();
+			}
+		}
+
+		ContentionReport stopContentionProfiler() {
+			return contentionProfiler != null ? contentionProfiler.stop() : null;
+		}
+
+		void startGcPauseRecorder() {
+			if (gcPauseRecorder != null) {
+				gcPauseRecorder.start();
+			}
+		}
+
+		void recordTaskInterval(long startNanos, long endNanos) {
+			if (gcPauseRecorder != null) {
+				gcPauseRecorder.recordTask(startNanos, endNanos);
+			}
+		}
+
+		GcReport stopGcPauseRecorder() {
+			return gcPauseRecorder != null ? gcPauseRecorder.stop() : null;
+		}
+
+		Duration getStartSkew() {
+			long first = firstStartNanos.get();
+			long last = lastStartNanos.get();
+			return first <= last ? Duration.ofNanos(last - first) : Duration.ZERO;
 		}
 	}
 
-	private static class NamedThreadFactory implements ThreadFactory {
+	static class NamedThreadFactory implements ThreadFactory {
 		private final String prefix;
 
 		private final AtomicInteger threadCount = new AtomicInteger();
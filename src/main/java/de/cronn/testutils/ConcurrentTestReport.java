@@ -0,0 +1,172 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+public class ConcurrentTestReport {
+
+	private final int taskCount;
+	private final Duration duration;
+	private final Duration startSkew;
+	private final Double targetRate;
+	private final Histogram latencies;
+	private final Histogram cpuTimes;
+	private final Histogram allocatedBytes;
+	private final ContentionReport contentionReport;
+	private final GcReport gcReport;
+
+	ConcurrentTestReport(int taskCount, Duration duration, Duration startSkew, TaskMetrics taskMetrics, ContentionReport contentionReport) {
+		this(taskCount, duration, startSkew, taskMetrics, contentionReport, null);
+	}
+
+	ConcurrentTestReport(int taskCount, Duration duration, Duration startSkew, TaskMetrics taskMetrics, ContentionReport contentionReport,
+		GcReport gcReport) {
+		this(taskCount, duration, startSkew, null, taskMetrics, contentionReport, gcReport);
+	}
+
+	ConcurrentTestReport(int taskCount, Duration duration, double targetRate, TaskMetrics taskMetrics, ContentionReport contentionReport,
+		GcReport gcReport) {
+		this(taskCount, duration, Duration.ZERO, targetRate, taskMetrics, contentionReport, gcReport);
+	}
+
+	private ConcurrentTestReport(int taskCount, Duration duration, Duration startSkew, Double targetRate, TaskMetrics taskMetrics,
+		ContentionReport contentionReport, GcReport gcReport) {
+		this.taskCount = taskCount;
+		this.duration = duration;
+		this.startSkew = startSkew;
+		this.targetRate = targetRate;
+		this.latencies = taskMetrics.getLatencies();
+		this.cpuTimes = taskMetrics.getCpuTimes();
+		this.allocatedBytes = taskMetrics.getAllocatedBytes();
+		this.contentionReport = contentionReport;
+		this.gcReport = gcReport;
+	}
+
+	public int getTaskCount() {
+		return taskCount;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the time between the first and the last task actually starting; the smaller the skew, the more the tasks overlapped.
+	 * Always zero for fixed-rate runs.
+	 */
+	public Duration getStartSkew() {
+		return startSkew;
+	}
+
+	/**
+	 * @return the intended tasks per second of a fixed-rate run
+	 */
+	public OptionalDouble getTargetRate() {
+		return targetRate == null ? OptionalDouble.empty() : OptionalDouble.of(targetRate);
+	}
+
+	/**
+	 * @return completed tasks per second
+	 */
+	public double getThroughput() {
+		if (duration.isZero()) {
+			return 0;
+		}
+		return taskCount / (duration.toNanos() / 1e9);
+	}
+
+	/**
+	 * @return the task latencies in nanoseconds, if recorded via {@link ConcurrentTest#withLatencyRecording()}
+	 */
+	public Optional<Histogram> getLatencies() {
+		return Optional.ofNullable(latencies);
+	}
+
+	/**
+	 * @return the CPU time of every call in nanoseconds, if measured via {@link ConcurrentTest#withResourceAccounting()}
+	 */
+	public Optional<Histogram> getCpuTimes() {
+		return Optional.ofNullable(cpuTimes);
+	}
+
+	/**
+	 * @return the bytes allocated by every call, if measured via {@link ConcurrentTest#withResourceAccounting()}
+	 */
+	public Optional<Histogram> getAllocatedBytes() {
+		return Optional.ofNullable(allocatedBytes);
+	}
+
+	/**
+	 * @return the lock contention of the worker threads, if profiled via {@link ConcurrentTest#withContentionProfiling()}
+	 */
+	public Optional<ContentionReport> getContentionReport() {
+		return Optional.ofNullable(contentionReport);
+	}
+
+	/**
+	 * @return the GC pauses during the run, if recorded via {@link ConcurrentTest#withGcPauseRecording()}
+	 */
+	public Optional<GcReport> getGcReport() {
+		return Optional.ofNullable(gcReport);
+	}
+
+	public Duration getLatencyAtPercentile(double percentile) {
+		Histogram histogram = getLatencies()
+			.orElseThrow(() -> new IllegalStateException("Latencies were not recorded. Use ConcurrentTest.withLatencyRecording()"));
+		return Duration.ofNanos(histogram.getValueAtPercentile(percentile));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%d tasks in %s (%.1f tasks/s)",
+			taskCount, formatNanos(duration.toNanos()), getThroughput()));
+		if (targetRate != null) {
+			report.append(String.format(Locale.ROOT, ", target rate: %.1f tasks/s", targetRate));
+		} else {
+			report.append(", start skew: ").append(formatNanos(startSkew.toNanos()));
+		}
+		if (latencies != null) {
+			report.append(String.format(Locale.ROOT, ", latency min: %s, p50: %s, p90: %s, p99: %s, p99.9: %s, max: %s",
+				formatNanos(latencies.getMin()),
+				formatNanos(latencies.getValueAtPercentile(50)),
+				formatNanos(latencies.getValueAtPercentile(90)),
+				formatNanos(latencies.getValueAtPercentile(99)),
+				formatNanos(latencies.getValueAtPercentile(99.9)),
+				formatNanos(latencies.getMax())));
+		}
+		if (cpuTimes != null) {
+			report.append(String.format(Locale.ROOT, ", CPU time total: %s, p50: %s, p99: %s, max: %s",
+				formatNanos(cpuTimes.getSum()),
+				formatNanos(cpuTimes.getValueAtPercentile(50)),
+				formatNanos(cpuTimes.getValueAtPercentile(99)),
+				formatNanos(cpuTimes.getMax())));
+			report.append(String.format(Locale.ROOT, ", allocated total: %d bytes, p50: %d bytes, p99: %d bytes, max: %d bytes",
+				allocatedBytes.getSum(),
+				allocatedBytes.getValueAtPercentile(50),
+				allocatedBytes.getValueAtPercentile(99),
+				allocatedBytes.getMax()));
+		}
+		if (contentionReport != null) {
+			report.append("\n").append(contentionReport);
+		}
+		if (gcReport != null) {
+			report.append("\n").append(gcReport);
+		}
+		return report.toString();
+	}
+
+	static String formatNanos(long nanos) {
+		if (nanos < 1_000) {
+			return nanos + " ns";
+		} else if (nanos < 1_000_000) {
+			return String.format(Locale.ROOT, "%.1f µs", nanos / 1e3);
+		} else if (nanos < 1_000_000_000) {
+			return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+		} else {
+			return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package de.cronn.testutils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+final class ContentionProfiler {
+
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+	private static final int MAX_STACK_DEPTH = 32;
+	private static final int TIMEOUT_MILLIS = 5_000;
+
+	private final String name;
+	private final Duration samplingInterval;
+	private final List<Thread> threads = new CopyOnWriteArrayList<>();
+	private final Map<String, LockSamples> lockSamplesByLock = new HashMap<>();
+	private final Map<Long, ThreadContentionSnapshot> snapshotsAtStart = new HashMap<>();
+	private ScheduledExecutorService sampler;
+	private boolean contentionMonitoringEnabledBefore;
+	private int samples;
+
+	ContentionProfiler(String name, Duration samplingInterval) {
+		if (!THREAD_MX_BEAN.isThreadContentionMonitoringSupported()) {
+			throw new UnsupportedOperationException("The JVM does not support thread contention monitoring");
+		}
+		this.name = name;
+		this.samplingInterval = samplingInterval;
+	}
+
+	ThreadFactory trackThreads(ThreadFactory threadFactory) {
+		return runnable -> {
+			Thread thread = threadFactory.newThread(runnable);
+			threads.add(thread);
+			return thread;
+		};
+	}
+
+	void start() {
+		contentionMonitoringEnabledBefore = THREAD_MX_BEAN.isThreadContentionMonitoringEnabled();
+		THREAD_MX_BEAN.setThreadContentionMonitoringEnabled(true);
+		// pool threads may already exist, e.g. after a warm-up, so only the contention since now is reported
+		for (ThreadInfo threadInfo : THREAD_MX_BEAN.getThreadInfo(getThreadIds())) {
+			if (threadInfo != null) {
+				snapshotsAtStart.put(threadInfo.getThreadId(), ThreadContentionSnapshot.of(threadInfo));
+			}
+		}
+		sampler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, name + "-contention-sampler"));
+		sampler.scheduleAtFixedRate(this::sample, 0, samplingInterval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	ContentionReport stop() {
+		try {
+			ExecutorServiceUtils.shutdownOrThrow(sampler, name + "-contention-sampler", TIMEOUT_MILLIS);
+			List<ContentionReport.ThreadContention> threadContentions = new ArrayList<>();
+			for (ThreadInfo threadInfo : THREAD_MX_BEAN.getThreadInfo(getThreadIds())) {
+				if (threadInfo != null) {
+					ThreadContentionSnapshot atStart = snapshotsAtStart.getOrDefault(threadInfo.getThreadId(), ThreadContentionSnapshot.NONE);
+					ThreadContentionSnapshot atStop = ThreadContentionSnapshot.of(threadInfo);
+					threadContentions.add(new ContentionReport.ThreadContention(threadInfo.getThreadName(),
+						atStop.blockedCount() - atStart.blockedCount(), Duration.ofMillis(Math.max(0, atStop.blockedMillis() - atStart.blockedMillis())),
+						atStop.waitedCount() - atStart.waitedCount(), Duration.ofMillis(Math.max(0, atStop.waitedMillis() - atStart.waitedMillis()))));
+				}
+			}
+			synchronized (this) {
+				List<ContentionReport.ContendedLock> contendedLocks = lockSamplesByLock.entrySet().stream()
+					.map(entry -> entry.getValue().toContendedLock(entry.getKey()))
+					.sorted((a, b) -> Integer.compare(b.samples(), a.samples()))
+					.toList();
+				return new ContentionReport(samples, samplingInterval, threadContentions, contendedLocks);
+			}
+		} finally {
+			THREAD_MX_BEAN.setThreadContentionMonitoringEnabled(contentionMonitoringEnabledBefore);
+		}
+	}
+
+	private long[] getThreadIds() {
+		return threads.stream().mapToLong(Thread::threadId).toArray();
+	}
+
+	private synchronized void sample() {
+		samples++;
+		for (ThreadInfo threadInfo : THREAD_MX_BEAN.getThreadInfo(getThreadIds())) {
+			if (threadInfo != null && isContended(threadInfo)) {
+				LockSamples lockSamples = lockSamplesByLock.computeIfAbsent(threadInfo.getLockName(), lock -> new LockSamples());
+				lockSamples.record(threadInfo);
+			}
+		}
+	}
+
+	// Threads waiting for a lock without owner (e.g. on a latch, a condition or an empty queue) are idle, not contended
+	private static boolean isContended(ThreadInfo threadInfo) {
+		return switch (threadInfo.getThreadState()) {
+			case BLOCKED -> true;
+			case WAITING, TIMED_WAITING -> threadInfo.getLockOwnerId() != -1;
+			default -> false;
+		};
+	}
+
+	private record ThreadContentionSnapshot(long blockedCount, long blockedMillis, long waitedCount, long waitedMillis) {
+		static final ThreadContentionSnapshot NONE = new ThreadContentionSnapshot(0, 0, 0, 0);
+
+		static ThreadContentionSnapshot of(ThreadInfo threadInfo) {
+			return new ThreadContentionSnapshot(threadInfo.getBlockedCount(), Math.max(0, threadInfo.getBlockedTime()),
+				threadInfo.getWaitedCount(), Math.max(0, threadInfo.getWaitedTime()));
+		}
+	}
+
+	private static final class LockSamples {
+		private int samples;
+		private final Map<String, Integer> samplesByOwner = new HashMap<>();
+		private final Map<List<StackTraceElement>, Integer> samplesByOwnerStackTrace = new HashMap<>();
+
+		void record(ThreadInfo threadInfo) {
+			samples++;
+			String owner = threadInfo.getLockOwnerName() != null ? threadInfo.getLockOwnerName() : "unknown";
+			samplesByOwner.merge(owner, 1, Integer::sum);
+			if (threadInfo.getLockOwnerId() != -1) {
+				ThreadInfo ownerInfo = THREAD_MX_BEAN.getThreadInfo(threadInfo.getLockOwnerId(), MAX_STACK_DEPTH);
+				if (ownerInfo != null) {
+					samplesByOwnerStackTrace.merge(Arrays.asList(ownerInfo.getStackTrace()), 1, Integer::sum);
+				}
+			}
+		}
+
+		ContentionReport.ContendedLock toContendedLock(String lock) {
+			List<StackTraceElement> ownerStackTrace = samplesByOwnerStackTrace.entrySet().stream()
+				.max(Map.Entry.comparingByValue())
+				.map(Map.Entry::getKey)
+				.orElse(List.of());
+			return new ContentionReport.ContendedLock(lock, samples, Map.copyOf(samplesByOwner), ownerStackTrace);
+		}
+	}
+}
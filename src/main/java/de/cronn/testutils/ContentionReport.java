@@ -0,0 +1,89 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lock contention of the worker threads of a {@link ConcurrentTest} run,
+ * see {@link ConcurrentTest#withContentionProfiling()}.
+ */
+public class ContentionReport {
+
+	private final int samples;
+	private final Duration samplingInterval;
+	private final List<ThreadContention> threads;
+	private final List<ContendedLock> contendedLocks;
+
+	ContentionReport(int samples, Duration samplingInterval, List<ThreadContention> threads, List<ContendedLock> contendedLocks) {
+		this.samples = samples;
+		this.samplingInterval = samplingInterval;
+		this.threads = List.copyOf(threads);
+		this.contendedLocks = List.copyOf(contendedLocks);
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	public Duration getSamplingInterval() {
+		return samplingInterval;
+	}
+
+	public List<ThreadContention> getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the locks that worker threads were blocked on, ordered by the number of samples in which they were contended
+	 */
+	public List<ContendedLock> getContendedLocks() {
+		return contendedLocks;
+	}
+
+	public long getTotalBlockedCount() {
+		return threads.stream().mapToLong(ThreadContention::blockedCount).sum();
+	}
+
+	public Duration getTotalBlockedTime() {
+		return threads.stream().map(ThreadContention::blockedTime).reduce(Duration.ZERO, Duration::plus);
+	}
+
+	public long getTotalWaitedCount() {
+		return threads.stream().mapToLong(ThreadContention::waitedCount).sum();
+	}
+
+	public Duration getTotalWaitedTime() {
+		return threads.stream().map(ThreadContention::waitedTime).reduce(Duration.ZERO, Duration::plus);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%d threads blocked %d times for %s and waited %d times for %s in total (%d samples every %s)",
+			threads.size(), getTotalBlockedCount(), getTotalBlockedTime(), getTotalWaitedCount(), getTotalWaitedTime(), samples, samplingInterval));
+		for (ContendedLock contendedLock : contendedLocks) {
+			report.append("\n").append(contendedLock);
+		}
+		return report.toString();
+	}
+
+	public record ThreadContention(String threadName, long blockedCount, Duration blockedTime, long waitedCount, Duration waitedTime) {
+	}
+
+	/**
+	 * @param lock the lock as reported by {@link java.lang.management.LockInfo#toString()}
+	 * @param samples the number of contended samples of this lock, summed over all waiting threads
+	 * @param samplesByOwner the number of contended samples per name of the thread that held the lock
+	 * @param ownerStackTrace the most frequently sampled stack trace of a thread holding the lock
+	 */
+	public record ContendedLock(String lock, int samples, Map<String, Integer> samplesByOwner, List<StackTraceElement> ownerStackTrace) {
+
+		@Override
+		public String toString() {
+			return String.format("%s contended in %d samples, held by %s%s", lock, samples, samplesByOwner,
+				ownerStackTrace.stream().map(element -> "\n\tat " + element).collect(Collectors.joining()));
+		}
+	}
+}
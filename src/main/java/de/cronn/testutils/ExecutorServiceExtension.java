@@ -1,24 +1,39 @@
 package de.cronn.testutils;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ExecutorServiceExtension implements BeforeEachCallback, AfterEachCallback {
 
+	private static final Logger log = LoggerFactory.getLogger(ExecutorServiceExtension.class);
+
+	private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(ExecutorServiceExtension.class);
+
 	private final Duration testTimeout;
+	private PoolScope poolScope = PoolScope.TEST;
+	private boolean virtualThreads;
+	private Integer maxPoolSize;
+	private ThreadFactory threadFactory;
 	private ExecutorService executorService;
-	private List<Future<?>> futures;
+	private boolean pruneSuccessfulFutures;
+	private FutureRegistry futureRegistry;
+	private TaskTimings taskTimings;
 
 	public ExecutorServiceExtension(long testTimeoutMillis) {
 		this(Duration.ofMillis(testTimeoutMillis));
@@ -28,17 +43,125 @@ public class ExecutorServiceExtension implements BeforeEachCallback, AfterEachCa
 		this.testTimeout = testTimeout;
 	}
 
+	/**
+	 * Reuses one pool of worker threads for all tests of the test class (including its nested classes) instead of
+	 * creating a pool per test. Tasks of a test still run on threads named after the test, and all of them must
+	 * complete before the test ends.
+	 */
+	public ExecutorServiceExtension withClassScopedPool() {
+		this.poolScope = PoolScope.CLASS;
+		return this;
+	}
+
+	/**
+	 * Like {@link #withClassScopedPool()}, but reuses the pool for all tests of the test run.
+	 */
+	public ExecutorServiceExtension withSuiteScopedPool() {
+		this.poolScope = PoolScope.SUITE;
+		return this;
+	}
+
+	/**
+	 * Runs every task on a new virtual thread, so that tests can submit thousands of blocking tasks.
+	 * Not supported in combination with {@link #withMaxPoolSize(int)} or {@link #withThreadFactory(ThreadFactory)}.
+	 */
+	public ExecutorServiceExtension withVirtualThreads() {
+		this.virtualThreads = true;
+		return checkOptionConflicts();
+	}
+
+	/**
+	 * Limits the number of worker threads. Further tasks are queued until a thread becomes available.
+	 */
+	public ExecutorServiceExtension withMaxPoolSize(int maxPoolSize) {
+		if (maxPoolSize < 1) {
+			throw new IllegalArgumentException("Max pool size must be positive: " + maxPoolSize);
+		}
+		this.maxPoolSize = maxPoolSize;
+		return checkOptionConflicts();
+	}
+
+	/**
+	 * Creates the worker threads with the given factory, for example to set the daemon flag or an uncaught exception handler.
+	 * The threads are still named after the test.
+	 */
+	public ExecutorServiceExtension withThreadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+		return checkOptionConflicts();
+	}
+
+	private ExecutorServiceExtension checkOptionConflicts() {
+		if (virtualThreads && maxPoolSize != null) {
+			throw new IllegalStateException("A max pool size is not supported with virtual threads");
+		}
+		if (virtualThreads && threadFactory != null) {
+			throw new IllegalStateException("A thread factory is not supported with virtual threads");
+		}
+		return this;
+	}
+
+	/**
+	 * Forgets futures as soon as they complete successfully, so that memory stays bounded in soak tests that submit
+	 * millions of tasks. Failed and cancelled futures are kept.
+	 */
+	public ExecutorServiceExtension withSuccessfulFuturePruning() {
+		this.pruneSuccessfulFutures = true;
+		return this;
+	}
+
 	@Override
 	public void afterEach(ExtensionContext context) {
-		ExecutorServiceUtils.shutdownOrThrow(executorService, getTestName(context), testTimeout);
+		String testName = getTestName(context);
+		try {
+			ExecutorServiceUtils.shutdownOrThrow(executorService, testName, testTimeout);
+		} finally {
+			if (taskTimings.hasSubmittedTasks()) {
+				log.info("Tasks of '{}': {}", testName, getReport());
+			}
+		}
 	}
 
 	@Override
 	public void beforeEach(ExtensionContext context) {
 		String testName = getTestName(context);
-		ThreadFactory threadFactory = new PrefixedThreadFactory(testName);
-		executorService = Executors.newCachedThreadPool(threadFactory);
-		futures = new ArrayList<>();
+		if (poolScope == PoolScope.TEST) {
+			executorService = createExecutorService(testName);
+		} else {
+			executorService = new LeasedExecutorService(getSharedPool(context), testName, testName + "-");
+		}
+		futureRegistry = new FutureRegistry(pruneSuccessfulFutures);
+		taskTimings = new TaskTimings();
+	}
+
+	private ExecutorService getSharedPool(ExtensionContext context) {
+		ExtensionContext scope = poolScope == PoolScope.SUITE ? context.getRoot() : getTopLevelClassContext(context);
+		SharedPool sharedPool = scope.getStore(NAMESPACE).computeIfAbsent(SharedPool.class, key -> {
+			String poolName = poolScope == PoolScope.SUITE ? "shared-pool" : scope.getRequiredTestClass().getSimpleName() + "-pool";
+			return new SharedPool(poolName, createExecutorService(poolName), testTimeout);
+		}, SharedPool.class);
+		return sharedPool.executorService();
+	}
+
+	private ExecutorService createExecutorService(String threadNamePrefix) {
+		if (virtualThreads) {
+			return Executors.newThreadPerTaskExecutor(new PrefixedThreadFactory(threadNamePrefix, Thread.ofVirtual().factory()));
+		}
+		ThreadFactory prefixedThreadFactory = new PrefixedThreadFactory(threadNamePrefix,
+			threadFactory != null ? threadFactory : Thread.ofPlatform().factory());
+		if (maxPoolSize != null) {
+			return Executors.newFixedThreadPool(maxPoolSize, prefixedThreadFactory);
+		}
+		return Executors.newCachedThreadPool(prefixedThreadFactory);
+	}
+
+	// the context of the outermost test class, so that nested classes share its pool
+	private static ExtensionContext getTopLevelClassContext(ExtensionContext context) {
+		ExtensionContext root = context.getRoot();
+		ExtensionContext classContext = context;
+		while (classContext.getParent().orElseThrow() != root) {
+			classContext = classContext.getParent().orElseThrow();
+		}
+		return classContext;
 	}
 
 	private String getTestName(ExtensionContext context) {
@@ -53,19 +176,52 @@ public class ExecutorServiceExtension implements BeforeEachCallback, AfterEachCa
 	}
 
 	public <T> Future<T> submit(Callable<T> callable) {
-		Future<T> future = executorService.submit(callable);
-		futures.add(future);
+		CompletionTrackingFuture<T> future = new CompletionTrackingFuture<>(callable, futureRegistry, taskTimings);
+		try {
+			executorService.execute(future);
+		} catch (RejectedExecutionException e) {
+			future.rejected();
+			throw e;
+		}
 		return future;
 	}
 
+	/**
+	 * The executor of the current test, for example to run a {@link ConcurrentTest} on the shared pool via
+	 * {@link ConcurrentTest#withExecutorService(ExecutorService)}.
+	 */
+	public ExecutorService getExecutorService() {
+		return executorService;
+	}
+
+	/**
+	 * Queue wait and run times of the tasks submitted during the current test. Logged after every test that submitted tasks.
+	 */
+	public ExecutorServiceReport getReport() {
+		return taskTimings.toReport();
+	}
+
+	/**
+	 * @return a snapshot of the futures of the current test in submission order, without the successfully completed
+	 * ones if {@link #withSuccessfulFuturePruning()} is used
+	 */
 	public List<Future<?>> getFutures() {
-		return futures;
+		return futureRegistry.getFutures();
 	}
 
 	public void awaitAllFutures() throws Exception {
-		for (Future<?> future : getFutures()) {
-			future.get();
-		}
+		futureRegistry.awaitAllSequentially();
+	}
+
+	/**
+	 * Awaits all futures, including futures submitted by the tasks themselves, in the order in which they complete
+	 * instead of the order of submission. On the first failure or when the timeout elapses, all remaining futures are cancelled.
+	 *
+	 * @throws ExecutionException of the first failed future
+	 * @throws TimeoutException if not all futures completed within the timeout
+	 */
+	public void awaitAllFutures(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+		futureRegistry.awaitAll(timeout);
 	}
 
 	static class TestNameUtils {
@@ -92,17 +248,58 @@ public class ExecutorServiceExtension implements BeforeEachCallback, AfterEachCa
 		}
 	}
 
+	private static final class CompletionTrackingFuture<T> extends FutureTask<T> {
+		private final FutureRegistry futureRegistry;
+		private final TaskTimings taskTimings;
+		private final long id;
+
+		CompletionTrackingFuture(Callable<T> callable, FutureRegistry futureRegistry, TaskTimings taskTimings) {
+			super(taskTimings.submitted(callable));
+			this.futureRegistry = futureRegistry;
+			this.taskTimings = taskTimings;
+			this.id = futureRegistry.register(this);
+		}
+
+		@Override
+		protected void done() {
+			taskTimings.taskCompleted();
+			futureRegistry.completed(id, this);
+		}
+
+		void rejected() {
+			taskTimings.taskCompleted();
+			futureRegistry.unregister(id);
+		}
+	}
+
+	private enum PoolScope {
+		TEST,
+		CLASS,
+		SUITE
+	}
+
+	private record SharedPool(String name, ExecutorService executorService, Duration timeout) implements AutoCloseable {
+		@Override
+		public void close() {
+			ExecutorServiceUtils.shutdownOrThrow(executorService, name, timeout);
+		}
+	}
+
 	private static class PrefixedThreadFactory implements ThreadFactory {
 		private final AtomicInteger counter = new AtomicInteger();
 		private final String threadNamePrefix;
+		private final ThreadFactory threadFactory;
 
-		public PrefixedThreadFactory(String threadNamePrefix) {
+		public PrefixedThreadFactory(String threadNamePrefix, ThreadFactory threadFactory) {
 			this.threadNamePrefix = threadNamePrefix;
+			this.threadFactory = threadFactory;
 		}
 
 		@Override
 		public Thread newThread(Runnable runnable) {
-			return new Thread(runnable, this.threadNamePrefix + "-" + counter.incrementAndGet());
+			Thread thread = threadFactory.newThread(runnable);
+			thread.setName(this.threadNamePrefix + "-" + counter.incrementAndGet());
+			return thread;
 		}
 	}
 }
@@ -0,0 +1,70 @@
+package de.cronn.testutils;
+
+import java.util.Locale;
+
+/**
+ * Timings of the tasks submitted to an {@link ExecutorServiceExtension} during one test.
+ */
+public class ExecutorServiceReport {
+
+	private final Histogram queueWaitTimes;
+	private final Histogram runTimes;
+	private final int peakInFlightTasks;
+	private final int peakThreadCount;
+
+	ExecutorServiceReport(Histogram queueWaitTimes, Histogram runTimes, int peakInFlightTasks, int peakThreadCount) {
+		this.queueWaitTimes = queueWaitTimes;
+		this.runTimes = runTimes;
+		this.peakInFlightTasks = peakInFlightTasks;
+		this.peakThreadCount = peakThreadCount;
+	}
+
+	/**
+	 * @return the number of tasks that started running
+	 */
+	public long getTaskCount() {
+		return runTimes.getTotalCount();
+	}
+
+	/**
+	 * @return the time between submitting and starting every task in nanoseconds
+	 */
+	public Histogram getQueueWaitTimes() {
+		return queueWaitTimes;
+	}
+
+	/**
+	 * @return the execution time of every task in nanoseconds
+	 */
+	public Histogram getRunTimes() {
+		return runTimes;
+	}
+
+	/**
+	 * @return the maximum number of tasks that were submitted but not yet completed at the same time
+	 */
+	public int getPeakInFlightTasks() {
+		return peakInFlightTasks;
+	}
+
+	/**
+	 * @return the maximum number of threads that were running tasks at the same time
+	 */
+	public int getPeakThreadCount() {
+		return peakThreadCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d tasks, queue wait p50: %s, p99: %s, max: %s, run time p50: %s, p99: %s, max: %s, "
+				+ "peak in-flight tasks: %d, peak threads: %d",
+			getTaskCount(),
+			ConcurrentTestReport.formatNanos(queueWaitTimes.getValueAtPercentile(50)),
+			ConcurrentTestReport.formatNanos(queueWaitTimes.getValueAtPercentile(99)),
+			ConcurrentTestReport.formatNanos(queueWaitTimes.getMax()),
+			ConcurrentTestReport.formatNanos(runTimes.getValueAtPercentile(50)),
+			ConcurrentTestReport.formatNanos(runTimes.getValueAtPercentile(99)),
+			ConcurrentTestReport.formatNanos(runTimes.getMax()),
+			peakInFlightTasks, peakThreadCount);
+	}
+}
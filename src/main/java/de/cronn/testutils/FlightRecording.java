@@ -0,0 +1,71 @@
+package de.cronn.testutils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Recording} of JDK Flight Recorder that is only written to a file on demand, e.g. if a test failed.
+ * The file is named {@code <name>_<start timestamp>.jfr}, so that recordings of repeated runs do not overwrite each other.
+ */
+final class FlightRecording implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+
+	static final String DEFAULT_CONFIGURATION = "profile";
+	static final Path DEFAULT_OUTPUT_DIRECTORY = Path.of("build");
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss.SSS");
+
+	private final Recording recording;
+	// without the .jfr extension
+	private final Path file;
+
+	private FlightRecording(Recording recording, Path file) {
+		this.recording = recording;
+		this.file = file;
+	}
+
+	static FlightRecording start(String configurationName, Path outputDirectory, String name) {
+		Configuration configuration;
+		try {
+			configuration = Configuration.getConfiguration(configurationName);
+		} catch (IOException | ParseException e) {
+			throw new TestUtilsRuntimeException("Failed to load flight recorder configuration '" + configurationName + "'", e);
+		}
+		Recording recording = new Recording(configuration);
+		recording.setName(name);
+		recording.start();
+		String fileName = name.replaceAll("[^A-Za-z0-9._-]", "_") + "_" + TIMESTAMP_FORMAT.format(LocalDateTime.now());
+		return new FlightRecording(recording, outputDirectory.resolve(fileName));
+	}
+
+	Path dump(String reason) {
+		Path target = file.resolveSibling(file.getFileName() + ".jfr");
+		try {
+			Files.createDirectories(target.toAbsolutePath().getParent());
+			// runs that started in the same millisecond
+			for (int i = 2; Files.exists(target); i++) {
+				target = file.resolveSibling(file.getFileName() + "-" + i + ".jfr");
+			}
+			recording.dump(target);
+		} catch (IOException e) {
+			throw new TestUtilsRuntimeException("Failed to write flight recording to " + target, e);
+		}
+		log.warn("{}, wrote flight recording to {}", reason, target.toAbsolutePath());
+		return target;
+	}
+
+	@Override
+	public void close() {
+		recording.close();
+	}
+}
@@ -0,0 +1,72 @@
+package de.cronn.testutils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Records every test with JDK Flight Recorder. The recording is discarded if the test succeeds and written to
+ * {@code build/<TestClass>_<testMethod>_<timestamp>.jfr} if the test fails or takes longer than the optional duration
+ * threshold. For invocations of repeated and parameterized tests, the display name of the invocation is appended to
+ * the test method.
+ */
+public class FlightRecordingExtension implements BeforeEachCallback, AfterEachCallback {
+
+	private String configuration = FlightRecording.DEFAULT_CONFIGURATION;
+	private Path outputDirectory = FlightRecording.DEFAULT_OUTPUT_DIRECTORY;
+	private Duration durationThreshold;
+	private FlightRecording flightRecording;
+	private long startNanos;
+
+	/**
+	 * Name of the flight recorder configuration, e.g. {@code default} or {@code profile}. Defaults to {@code profile}.
+	 */
+	public FlightRecordingExtension withConfiguration(String configuration) {
+		this.configuration = configuration;
+		return this;
+	}
+
+	public FlightRecordingExtension withOutputDirectory(Path outputDirectory) {
+		this.outputDirectory = outputDirectory;
+		return this;
+	}
+
+	public FlightRecordingExtension withDurationThreshold(Duration durationThreshold) {
+		this.durationThreshold = durationThreshold;
+		return this;
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		String testName = ExecutorServiceExtension.TestNameUtils.getTestName(context.getRequiredTestClass(),
+			context.getRequiredTestMethod().getName());
+		if (isTestTemplateInvocation(context)) {
+			testName += "_" + context.getDisplayName();
+		}
+		flightRecording = FlightRecording.start(configuration, outputDirectory, testName);
+		startNanos = System.nanoTime();
+	}
+
+	private static boolean isTestTemplateInvocation(ExtensionContext context) {
+		return context.getParent().flatMap(ExtensionContext::getTestMethod).isPresent();
+	}
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+		try {
+			if (context.getExecutionException().isPresent()) {
+				flightRecording.dump(context.getDisplayName() + " failed");
+			} else if (durationThreshold != null && duration.compareTo(durationThreshold) > 0) {
+				flightRecording.dump(String.format("%s took %s, exceeding %s", context.getDisplayName(),
+					ConcurrentTestReport.formatNanos(duration.toNanos()), ConcurrentTestReport.formatNanos(durationThreshold.toNanos())));
+			}
+		} finally {
+			flightRecording.close();
+			flightRecording = null;
+		}
+	}
+}
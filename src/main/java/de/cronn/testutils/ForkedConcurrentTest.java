@@ -0,0 +1,236 @@
+package de.cronn.testutils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Variant of {@link ConcurrentTest} that runs the task in several local worker JVMs, forked from the current classpath,
+ * to reproduce contention between processes, for example on database rows or file locks.
+ * <p>
+ * The task class needs a public no-arg constructor and its results must be {@link java.io.Serializable}.
+ * Every worker calls the task on its own threads with a distinct range of indices. The workers are released at the same
+ * time once all of them are started, and their results are asserted on the calling thread as they arrive.
+ */
+public class ForkedConcurrentTest<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(ForkedConcurrentTest.class);
+
+	private static final int TIMEOUT_MILLIS = 30_000;
+	private final Class<? extends ConcurrentTest.IndexedCallable<T>> taskClass;
+	private int processes = 2;
+	private int tasksPerProcess = 1;
+	private String threadNamePrefix = ForkedConcurrentTest.class.getSimpleName();
+	private final List<String> jvmArguments = new ArrayList<>();
+
+	public ForkedConcurrentTest(Class<? extends ConcurrentTest.IndexedCallable<T>> taskClass) {
+		this.taskClass = taskClass;
+	}
+
+	public static <T> ForkedConcurrentTest<T> create(Class<? extends ConcurrentTest.IndexedCallable<T>> taskClass) {
+		return new ForkedConcurrentTest<>(taskClass);
+	}
+
+	public ForkedConcurrentTest<T> withProcesses(int processes) {
+		this.processes = processes;
+		return this;
+	}
+
+	public ForkedConcurrentTest<T> withTasksPerProcess(int tasksPerProcess) {
+		this.tasksPerProcess = tasksPerProcess;
+		return this;
+	}
+
+	public ForkedConcurrentTest<T> withThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+		return this;
+	}
+
+	public ForkedConcurrentTest<T> withThreadNamePrefixFromClass(Class<?> clazz) {
+		return withThreadNamePrefix(clazz.getSimpleName());
+	}
+
+	public ForkedConcurrentTest<T> withJvmArguments(String... jvmArguments) {
+		this.jvmArguments.addAll(List.of(jvmArguments));
+		return this;
+	}
+
+	public ConcurrentTestReport runAndAssertEachResult(Consumer<T> assertion) throws InterruptedException, ExecutionException {
+		int taskCount = Math.multiplyExact(processes, tasksPerProcess);
+		TaskMetrics taskMetrics = new TaskMetrics(true, false);
+		LongAccumulator firstStartEpochNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		LongAccumulator lastStartEpochNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+		BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+		CountDownLatch readyWorkers = new CountDownLatch(processes);
+		AtomicReference<Throwable> startupFailure = new AtomicReference<>();
+		List<Process> workers = new ArrayList<>();
+		List<Thread> readers = new ArrayList<>();
+		long startNanos;
+		long endNanos;
+		try {
+			for (int process = 0; process < processes; process++) {
+				Process worker = startWorker(process);
+				workers.add(worker);
+				readers.add(Thread.ofPlatform()
+					.name(threadNamePrefix + "-reader-" + process)
+					.daemon()
+					.start(() -> readWorkerOutput(worker, readyWorkers, startupFailure, outcomes)));
+			}
+			boolean allReleased = readyWorkers.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			if (startupFailure.get() != null) {
+				throw new ExecutionException(startupFailure.get());
+			}
+			if (!allReleased) {
+				Assertions.fail(String.format("Only %d of %d worker JVMs of '%s' started within %d ms",
+					processes - readyWorkers.getCount(), processes, threadNamePrefix, TIMEOUT_MILLIS));
+			}
+			startNanos = System.nanoTime();
+			for (Process worker : workers) {
+				sendGo(worker);
+			}
+			for (int i = 0; i < taskCount; i++) {
+				Outcome outcome = outcomes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (outcome == null) {
+					Assertions.fail(String.format("No result of the worker JVMs of '%s' arrived within %d ms, %d of %d tasks completed",
+						threadNamePrefix, TIMEOUT_MILLIS, i, taskCount));
+				}
+				if (outcome.failure() != null) {
+					throw new ExecutionException(outcome.failure());
+				}
+				firstStartEpochNanos.accumulate(outcome.startEpochNanos());
+				lastStartEpochNanos.accumulate(outcome.startEpochNanos());
+				taskMetrics.recordTask(outcome.latencyNanos(), 0, 0);
+				@SuppressWarnings("unchecked")
+				T result = (T) outcome.result();
+				assertion.accept(result);
+			}
+			endNanos = System.nanoTime();
+			for (Process worker : workers) {
+				awaitExit(worker);
+			}
+		} finally {
+			for (Process worker : workers) {
+				worker.destroyForcibly();
+			}
+			for (Thread reader : readers) {
+				reader.join(TIMEOUT_MILLIS);
+			}
+		}
+		return new ConcurrentTestReport(taskCount, Duration.ofNanos(endNanos - startNanos),
+			Duration.ofNanos(lastStartEpochNanos.get() - firstStartEpochNanos.get()), taskMetrics, null);
+	}
+
+	private Process startWorker(int process) {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArguments);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ForkedConcurrentTestWorker.class.getName());
+		command.add(taskClass.getName());
+		command.add(String.valueOf(process * tasksPerProcess));
+		command.add(String.valueOf(tasksPerProcess));
+		command.add(threadNamePrefix + "-" + process + "-");
+		try {
+			return new ProcessBuilder(command)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		} catch (IOException e) {
+			throw new TestUtilsRuntimeException("Failed to start worker JVM " + process + " of '" + threadNamePrefix + "'", e);
+		}
+	}
+
+	private static void readWorkerOutput(Process worker, CountDownLatch readyWorkers, AtomicReference<Throwable> startupFailure,
+		BlockingQueue<Outcome> outcomes) {
+		boolean ready = false;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split(" ");
+				switch (fields[0]) {
+					case ForkedConcurrentTestWorker.READY -> {
+						ready = true;
+						readyWorkers.countDown();
+					}
+					case ForkedConcurrentTestWorker.RESULT -> outcomes.add(new Outcome(Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+						ForkedConcurrentTestWorker.deserialize(fields[4]), null));
+					case ForkedConcurrentTestWorker.FAILURE -> {
+						Throwable failure = (Throwable) ForkedConcurrentTestWorker.deserialize(fields[2]);
+						if (!ready) {
+							failedToStart(new TestUtilsRuntimeException("Worker JVM " + worker.pid() + " failed to create the task", failure),
+								readyWorkers, startupFailure);
+							return;
+						}
+						outcomes.add(new Outcome(0, 0, null, failure));
+					}
+					case ForkedConcurrentTestWorker.DONE -> {
+						return;
+					}
+					default -> log.warn("Unexpected output of worker JVM {}: {}", worker.pid(), line);
+				}
+			}
+			if (!ready) {
+				failedToStart(new TestUtilsRuntimeException("Worker JVM " + worker.pid() + " exited with " + worker.waitFor()
+					+ " before it was ready, see its output on stderr"), readyWorkers, startupFailure);
+				return;
+			}
+			outcomes.add(new Outcome(0, 0, null, new TestUtilsRuntimeException("Worker JVM " + worker.pid() + " exited before completing all tasks")));
+		} catch (IOException | RuntimeException e) {
+			if (!ready) {
+				failedToStart(e, readyWorkers, startupFailure);
+			} else {
+				outcomes.add(new Outcome(0, 0, null, e));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failedToStart(e, readyWorkers, startupFailure);
+		}
+	}
+
+	// releases the calling thread, which would otherwise wait for the READY of this worker until the timeout
+	private static void failedToStart(Throwable failure, CountDownLatch readyWorkers, AtomicReference<Throwable> startupFailure) {
+		startupFailure.compareAndSet(null, failure);
+		while (readyWorkers.getCount() > 0) {
+			readyWorkers.countDown();
+		}
+	}
+
+	private static void sendGo(Process worker) {
+		try {
+			OutputStream stdin = worker.getOutputStream();
+			stdin.write((ForkedConcurrentTestWorker.GO + "\n").getBytes(StandardCharsets.UTF_8));
+			stdin.flush();
+		} catch (IOException e) {
+			throw new TestUtilsRuntimeException("Failed to release worker JVM " + worker.pid(), e);
+		}
+	}
+
+	private void awaitExit(Process worker) throws InterruptedException {
+		if (!worker.waitFor(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+			Assertions.fail(String.format("Worker JVM %d of '%s' did not exit within %d ms", worker.pid(), threadNamePrefix, TIMEOUT_MILLIS));
+		}
+		if (worker.exitValue() != 0) {
+			Assertions.fail(String.format("Worker JVM %d of '%s' exited with %d", worker.pid(), threadNamePrefix, worker.exitValue()));
+		}
+	}
+
+	private record Outcome(long startEpochNanos, long latencyNanos, Object result, Throwable failure) {
+	}
+}
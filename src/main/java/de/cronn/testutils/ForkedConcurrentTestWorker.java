@@ -0,0 +1,111 @@
+package de.cronn.testutils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Entry point of the worker JVMs forked by {@link ForkedConcurrentTest}.
+ * <p>
+ * Protocol: the worker prints {@code READY} and waits for {@code GO} on stdin. Then it calls the task once per index on
+ * its own threads and prints one {@code RESULT} or {@code FAILURE} line per call, followed by {@code DONE}.
+ * If the task cannot be instantiated, the worker prints a {@code FAILURE} line instead of {@code READY} and exits.
+ * Output of the task itself is redirected to stderr.
+ */
+final class ForkedConcurrentTestWorker {
+
+	static final String READY = "READY";
+	static final String GO = "GO";
+	static final String RESULT = "RESULT";
+	static final String FAILURE = "FAILURE";
+	static final String DONE = "DONE";
+
+	private ForkedConcurrentTestWorker() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String taskClassName = args[0];
+		int firstIndex = Integer.parseInt(args[1]);
+		int taskCount = Integer.parseInt(args[2]);
+		String threadNamePrefix = args[3];
+
+		PrintStream protocol = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+		System.setOut(System.err);
+
+		ConcurrentTest.IndexedCallable<?> task;
+		try {
+			task = (ConcurrentTest.IndexedCallable<?>) Class.forName(taskClassName)
+				.getConstructor()
+				.newInstance();
+		} catch (Throwable e) {
+			protocol.println(String.join(" ", FAILURE, "-1", serialize(e)));
+			return;
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(taskCount, new ConcurrentTest.NamedThreadFactory(threadNamePrefix));
+		try {
+			protocol.println(READY);
+			BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+			if (!GO.equals(stdin.readLine())) {
+				return;
+			}
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < taskCount; i++) {
+				int index = firstIndex + i;
+				futures.add(executorService.submit(() -> protocol.println(call(task, index))));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			protocol.println(DONE);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private static String call(ConcurrentTest.IndexedCallable<?> task, int index) {
+		Instant start = Instant.now();
+		long startNanos = System.nanoTime();
+		try {
+			Object result = task.call(index);
+			long latencyNanos = System.nanoTime() - startNanos;
+			return String.join(" ", RESULT, String.valueOf(index), String.valueOf(ChronoUnit.NANOS.between(Instant.EPOCH, start)),
+				String.valueOf(latencyNanos), serialize(result));
+		} catch (Throwable e) {
+			return String.join(" ", FAILURE, String.valueOf(index), serialize(e));
+		}
+	}
+
+	static String serialize(Object value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+			objectOutputStream.writeObject(value);
+		} catch (IOException e) {
+			throw new TestUtilsRuntimeException("Failed to serialize " + value, e);
+		}
+		return Base64.getEncoder().encodeToString(bytes.toByteArray());
+	}
+
+	static Serializable deserialize(String base64) {
+		byte[] bytes = Base64.getDecoder().decode(base64);
+		try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (Serializable) objectInputStream.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new TestUtilsRuntimeException("Failed to deserialize result of forked worker", e);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free registry of the futures submitted during one test, in submission order.
+ * Optionally forgets futures as soon as they complete successfully, so that soak tests do not retain every future.
+ */
+final class FutureRegistry {
+
+	private final boolean pruneSuccessfulFutures;
+	private final AtomicLong submittedFutures = new AtomicLong();
+	private final ConcurrentSkipListMap<Long, Future<?>> futures = new ConcurrentSkipListMap<>();
+	private final AtomicInteger pendingFutures = new AtomicInteger();
+	private final AtomicReference<Future<?>> firstFailure = new AtomicReference<>();
+	private final Object completionSignal = new Object();
+
+	FutureRegistry(boolean pruneSuccessfulFutures) {
+		this.pruneSuccessfulFutures = pruneSuccessfulFutures;
+	}
+
+	long register(Future<?> future) {
+		long id = submittedFutures.incrementAndGet();
+		pendingFutures.incrementAndGet();
+		futures.put(id, future);
+		return id;
+	}
+
+	/**
+	 * Removes a future that was registered, but never submitted.
+	 */
+	void unregister(long id) {
+		futures.remove(id);
+		pendingFutures.decrementAndGet();
+	}
+
+	void completed(long id, Future<?> future) {
+		Future.State state = future.state();
+		if (state == Future.State.SUCCESS && pruneSuccessfulFutures) {
+			futures.remove(id);
+		}
+		boolean failed = state == Future.State.FAILED && firstFailure.compareAndSet(null, future);
+		if (pendingFutures.decrementAndGet() == 0 || failed) {
+			synchronized (completionSignal) {
+				completionSignal.notifyAll();
+			}
+		}
+	}
+
+	List<Future<?>> getFutures() {
+		return List.copyOf(futures.values());
+	}
+
+	void awaitAllSequentially() throws InterruptedException, ExecutionException {
+		for (Future<?> future : futures.values()) {
+			future.get();
+		}
+	}
+
+	void awaitAll(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+		long deadlineNanos = System.nanoTime() + timeout.toNanos();
+		synchronized (completionSignal) {
+			while (pendingFutures.get() > 0 && firstFailure.get() == null) {
+				long remainingNanos = deadlineNanos - System.nanoTime();
+				if (remainingNanos <= 0) {
+					break;
+				}
+				TimeUnit.NANOSECONDS.timedWait(completionSignal, remainingNanos);
+			}
+		}
+		Future<?> failure = firstFailure.get();
+		if (failure != null) {
+			cancelPending();
+			failure.get();
+		}
+		int pending = pendingFutures.get();
+		if (pending > 0) {
+			cancelPending();
+			throw new TimeoutException(String.format("%d of %d futures did not complete within %d ms",
+				pending, submittedFutures.get(), timeout.toMillis()));
+		}
+	}
+
+	private void cancelPending() {
+		for (Future<?> future : futures.values()) {
+			future.cancel(true);
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package de.cronn.testutils;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+/**
+ * Records GC pauses via {@link GarbageCollectorMXBean} notifications and classifies every task by whether its latency
+ * overlapped a GC pause. Tasks are buffered until the notifications of all collections that ended before them arrived,
+ * so memory does not grow with the number of tasks.
+ * <p>
+ * The JVM reports the start and end of a pause in milliseconds since a JVM-internal origin, which is neither the origin
+ * of {@link java.lang.management.RuntimeMXBean#getUptime()} nor of {@link java.lang.management.RuntimeMXBean#getStartTime()}.
+ * To map them to {@link System#nanoTime()}, the collection counts are read whenever a task is recorded: a count below
+ * the id of a collection proves that its pause started later, a count reaching it that its pause already ended. Together
+ * with the time a notification is received, this bounds the origin from both sides. A pause is assumed to span every
+ * position its start and end can have within these bounds, so that every overlapping task is found, see
+ * {@link #getPausePositionErrorNanos()}.
+ */
+final class GcPauseRecorder implements NotificationListener {
+
+	private static final Logger log = LoggerFactory.getLogger(GcPauseRecorder.class);
+
+	// the origin is the same for all runs, so the bounds only get tighter
+	private static final AtomicLong EARLIEST_GC_CLOCK_ORIGIN_NANOS = new AtomicLong(Long.MIN_VALUE);
+	private static final AtomicLong LATEST_GC_CLOCK_ORIGIN_NANOS = new AtomicLong(Long.MAX_VALUE);
+
+	private static final int TASK_BUFFER_SIZE = 4096;
+	private static final long NOTIFICATION_TIMEOUT_MILLIS = 1_000;
+
+	private final List<NotificationEmitter> emitters = new ArrayList<>();
+	private final Map<String, MonitoredCollector> collectors = new LinkedHashMap<>();
+	private final List<RecordedPause> recordedPauses = new ArrayList<>();
+	private final List<CollectionWindow> collectionWindows = new ArrayList<>();
+	private final long[] taskStartNanos = new long[TASK_BUFFER_SIZE];
+	private final long[] taskEndNanos = new long[TASK_BUFFER_SIZE];
+	private int bufferedTasks;
+	private int tasksOverlappingPauses;
+	private final Histogram latenciesExcludingGc = new Histogram();
+	private long startNanos;
+
+	void start() {
+		List<GarbageCollectorMXBean> garbageCollectors = new ArrayList<>();
+		for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (garbageCollector instanceof NotificationEmitter emitter && !isConcurrentCycle(garbageCollector.getName())) {
+				emitter.addNotificationListener(this, null, null);
+				emitters.add(emitter);
+				garbageCollectors.add(garbageCollector);
+			}
+		}
+		synchronized (this) {
+			for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+				long beforeNanos = System.nanoTime();
+				collectors.put(garbageCollector.getName(), new MonitoredCollector(garbageCollector, garbageCollector.getCollectionCount(), beforeNanos));
+			}
+		}
+		startNanos = System.nanoTime();
+	}
+
+	synchronized void recordTask(long startNanos, long endNanos) {
+		if (bufferedTasks == TASK_BUFFER_SIZE) {
+			classifyBufferedTasks();
+		}
+		observeCollections();
+		taskStartNanos[bufferedTasks] = startNanos;
+		taskEndNanos[bufferedTasks] = endNanos;
+		bufferedTasks++;
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		long receivedNanos = System.nanoTime();
+		if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+			return;
+		}
+		GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+		GcInfo gcInfo = info.getGcInfo();
+		synchronized (this) {
+			MonitoredCollector collector = collectors.get(info.getGcName());
+			if (collector != null) {
+				collector.notifiedCollections = Math.max(collector.notifiedCollections, gcInfo.getId());
+			}
+			recordedPauses.add(new RecordedPause(info.getGcName(), info.getGcAction(), info.getGcCause(), gcInfo.getId(),
+				gcInfo.getStartTime(), gcInfo.getEndTime(), receivedNanos));
+			notifyAll();
+		}
+	}
+
+	private static boolean isConcurrentCycle(String collectorName) {
+		// concurrent collectors report their concurrent cycles through separate beans, e.g. "G1 Concurrent GC" or "ZGC Cycles"
+		return collectorName.contains("Concurrent") || collectorName.contains("Cycles");
+	}
+
+	GcReport stop() {
+		synchronized (this) {
+			// also waits for the notifications still in flight, which are lost once the listeners are removed
+			classifyBufferedTasks();
+		}
+		for (NotificationEmitter emitter : emitters) {
+			try {
+				emitter.removeNotificationListener(this);
+			} catch (ListenerNotFoundException e) {
+				throw new TestUtilsRuntimeException(e);
+			}
+		}
+		synchronized (this) {
+			List<GcReport.GcPause> pauses = new ArrayList<>();
+			for (RecordedPause recordedPause : recordedPauses) {
+				PauseInterval pauseInterval = toPauseInterval(recordedPause);
+				if (pauseInterval.endNanos() >= startNanos) {
+					pauses.add(new GcReport.GcPause(Duration.ofNanos(Math.max(0, pauseInterval.startNanos() - startNanos)), recordedPause.collector(),
+						recordedPause.action(), recordedPause.cause(), Duration.ofMillis(recordedPause.endMillis() - recordedPause.startMillis())));
+				}
+			}
+			return new GcReport(pauses, tasksOverlappingPauses, latenciesExcludingGc);
+		}
+	}
+
+	/**
+	 * @return by how much the interval assumed for a pause may extend beyond the actual pause on either side, once a
+	 * pause was recorded
+	 */
+	long getPausePositionErrorNanos() {
+		return LATEST_GC_CLOCK_ORIGIN_NANOS.get() - EARLIEST_GC_CLOCK_ORIGIN_NANOS.get() + TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	// called with the lock held
+	private void observeCollections() {
+		for (MonitoredCollector collector : collectors.values()) {
+			long beforeNanos = System.nanoTime();
+			long collections = collector.garbageCollector.getCollectionCount();
+			long afterNanos = System.nanoTime();
+			if (collections > collector.observedCollections) {
+				collectionWindows.add(new CollectionWindow(collector.garbageCollector.getName(), collector.observedCollections + 1, collections,
+					collector.nanosBeforeNextCollection, afterNanos));
+				collector.observedCollections = collections;
+			}
+			collector.nanosBeforeNextCollection = beforeNanos;
+		}
+	}
+
+	// called with the lock held
+	private void classifyBufferedTasks() {
+		awaitNotifications();
+		observeCollections();
+		narrowGcClockOrigin();
+		List<PauseInterval> pauseIntervals = new ArrayList<>(recordedPauses.size());
+		for (RecordedPause recordedPause : recordedPauses) {
+			pauseIntervals.add(toPauseInterval(recordedPause));
+		}
+		for (int task = 0; task < bufferedTasks; task++) {
+			if (overlapsPause(pauseIntervals, taskStartNanos[task], taskEndNanos[task])) {
+				tasksOverlappingPauses++;
+			} else {
+				latenciesExcludingGc.recordValue(taskEndNanos[task] - taskStartNanos[task]);
+			}
+		}
+		bufferedTasks = 0;
+	}
+
+	// called with the lock held, which is released while waiting so that notifications can be received
+	private void awaitNotifications() {
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NOTIFICATION_TIMEOUT_MILLIS);
+		while (!collectors.values().stream().allMatch(MonitoredCollector::isNotified)) {
+			long remainingNanos = deadlineNanos - System.nanoTime();
+			if (remainingNanos <= 0) {
+				log.warn("GC notifications did not arrive within {} ms, some GC pauses may be missing", NOTIFICATION_TIMEOUT_MILLIS);
+				// do not wait for them again
+				collectors.values().forEach(MonitoredCollector::skipMissingNotifications);
+				return;
+			}
+			try {
+				TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	// called with the lock held
+	private void narrowGcClockOrigin() {
+		for (RecordedPause recordedPause : recordedPauses) {
+			// the pause ended before its notification was received
+			LATEST_GC_CLOCK_ORIGIN_NANOS.accumulateAndGet(recordedPause.receivedNanos() - TimeUnit.MILLISECONDS.toNanos(recordedPause.endMillis()),
+				Math::min);
+			for (CollectionWindow collectionWindow : collectionWindows) {
+				if (collectionWindow.contains(recordedPause)) {
+					// the start is truncated to milliseconds, so the pause may have started up to a millisecond later
+					EARLIEST_GC_CLOCK_ORIGIN_NANOS.accumulateAndGet(
+						collectionWindow.notBeforeNanos() - TimeUnit.MILLISECONDS.toNanos(recordedPause.startMillis() + 1), Math::max);
+					LATEST_GC_CLOCK_ORIGIN_NANOS.accumulateAndGet(
+						collectionWindow.endedByNanos() - TimeUnit.MILLISECONDS.toNanos(recordedPause.endMillis()), Math::min);
+				}
+			}
+		}
+	}
+
+	private static PauseInterval toPauseInterval(RecordedPause recordedPause) {
+		// round the end up to the resolution of the notification
+		return new PauseInterval(EARLIEST_GC_CLOCK_ORIGIN_NANOS.get() + TimeUnit.MILLISECONDS.toNanos(recordedPause.startMillis()),
+			LATEST_GC_CLOCK_ORIGIN_NANOS.get() + TimeUnit.MILLISECONDS.toNanos(recordedPause.endMillis() + 1));
+	}
+
+	private static boolean overlapsPause(List<PauseInterval> pauseIntervals, long taskStartNanos, long taskEndNanos) {
+		for (PauseInterval pauseInterval : pauseIntervals) {
+			if (taskStartNanos < pauseInterval.endNanos() && pauseInterval.startNanos() < taskEndNanos) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class MonitoredCollector {
+		private final GarbageCollectorMXBean garbageCollector;
+		private long notifiedCollections;
+		private long observedCollections;
+		private long nanosBeforeNextCollection;
+
+		MonitoredCollector(GarbageCollectorMXBean garbageCollector, long collections, long observedNanos) {
+			this.garbageCollector = garbageCollector;
+			this.notifiedCollections = collections;
+			this.observedCollections = collections;
+			this.nanosBeforeNextCollection = observedNanos;
+		}
+
+		// the id of a collection is the collection count after it
+		boolean isNotified() {
+			return notifiedCollections >= garbageCollector.getCollectionCount();
+		}
+
+		void skipMissingNotifications() {
+			notifiedCollections = Math.max(notifiedCollections, garbageCollector.getCollectionCount());
+		}
+	}
+
+	private record RecordedPause(String collector, String action, String cause, long id, long startMillis, long endMillis,
+		long receivedNanos) {
+	}
+
+	/**
+	 * The pauses of the collections {@code firstId} to {@code lastId} started after {@code notBeforeNanos} and ended
+	 * before {@code endedByNanos}.
+	 */
+	private record CollectionWindow(String collector, long firstId, long lastId, long notBeforeNanos, long endedByNanos) {
+
+		boolean contains(RecordedPause recordedPause) {
+			return collector.equals(recordedPause.collector()) && firstId <= recordedPause.id() && recordedPause.id() <= lastId;
+		}
+	}
+
+	private record PauseInterval(long startNanos, long endNanos) {
+	}
+}
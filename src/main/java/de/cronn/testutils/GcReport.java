@@ -0,0 +1,68 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * GC pauses during a {@link ConcurrentTest} run and the task latencies that did not overlap any of them,
+ * see {@link ConcurrentTest#withGcPauseRecording()}.
+ */
+public class GcReport {
+
+	private final List<GcPause> pauses;
+	private final int tasksOverlappingPauses;
+	private final Histogram latenciesExcludingGc;
+
+	GcReport(List<GcPause> pauses, int tasksOverlappingPauses, Histogram latenciesExcludingGc) {
+		this.pauses = List.copyOf(pauses);
+		this.tasksOverlappingPauses = tasksOverlappingPauses;
+		this.latenciesExcludingGc = latenciesExcludingGc;
+	}
+
+	public List<GcPause> getPauses() {
+		return pauses;
+	}
+
+	public Duration getTotalPauseTime() {
+		return pauses.stream().map(GcPause::duration).reduce(Duration.ZERO, Duration::plus);
+	}
+
+	/**
+	 * @return the number of tasks whose latency overlapped at least one GC pause
+	 */
+	public int getTasksOverlappingPauses() {
+		return tasksOverlappingPauses;
+	}
+
+	/**
+	 * @return the latencies of the tasks that did not overlap any GC pause, in nanoseconds
+	 */
+	public Histogram getLatenciesExcludingGc() {
+		return latenciesExcludingGc;
+	}
+
+	public Duration getLatencyAtPercentileExcludingGc(double percentile) {
+		return Duration.ofNanos(latenciesExcludingGc.getValueAtPercentile(percentile));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d GC pauses (total %s) overlapping %d tasks", pauses.size(),
+			ConcurrentTestReport.formatNanos(getTotalPauseTime().toNanos()), tasksOverlappingPauses)
+			+ pauses.stream().map(pause -> "\n  " + pause).collect(Collectors.joining());
+	}
+
+	/**
+	 * @param offset time since the start of the run, at the earliest the pause may have started given the millisecond
+	 * resolution of the JVM's GC timestamps
+	 */
+	public record GcPause(Duration offset, String collector, String action, String cause, Duration duration) {
+
+		@Override
+		public String toString() {
+			return String.format("+%s: %s, %s (%s) for %s", ConcurrentTestReport.formatNanos(offset.toNanos()), collector, action, cause,
+				ConcurrentTestReport.formatNanos(duration.toNanos()));
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package de.cronn.testutils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory histogram of non-negative {@code long} values with logarithmic buckets, similar to HdrHistogram.
+ * <p>
+ * Values below 128 are counted exactly, larger values are counted in buckets with a relative width of less than 1/64.
+ * Recording is thread-safe and allocation-free: counts are striped over several arrays by the recording thread
+ * to avoid contention between threads recording similar values.
+ */
+public final class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = Long.SIZE - SUB_BUCKET_BITS;
+	private static final int COUNTS_LENGTH = SUB_BUCKET_COUNT + BUCKET_COUNT * SUB_BUCKET_HALF_COUNT;
+	private static final int MAX_STRIPES = 16;
+
+	private final AtomicLongArray[] stripes;
+	private final int stripeMask;
+	private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+	private final LongAdder sum = new LongAdder();
+
+	public Histogram() {
+		int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+		this.stripes = new AtomicLongArray[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new AtomicLongArray(COUNTS_LENGTH);
+		}
+		this.stripeMask = stripeCount - 1;
+	}
+
+	public void recordValue(long value) {
+		long nonNegativeValue = Math.max(0, value);
+		int stripe = (int) Thread.currentThread().threadId() & stripeMask;
+		stripes[stripe].incrementAndGet(countsIndex(nonNegativeValue));
+		min.accumulate(nonNegativeValue);
+		max.accumulate(nonNegativeValue);
+		sum.add(nonNegativeValue);
+	}
+
+	public long getTotalCount() {
+		long totalCount = 0;
+		for (long count : snapshotCounts()) {
+			totalCount += count;
+		}
+		return totalCount;
+	}
+
+	public long getMin() {
+		return getTotalCount() == 0 ? 0 : min.get();
+	}
+
+	public long getMax() {
+		return getTotalCount() == 0 ? 0 : max.get();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public double getMean() {
+		long totalCount = getTotalCount();
+		return totalCount == 0 ? 0 : sum.doubleValue() / totalCount;
+	}
+
+	/**
+	 * @param percentile a percentile between 0 and 100, e.g. {@code 99.9}
+	 * @return the highest value that is equivalent to the recorded value at the given percentile
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+		}
+		long[] counts = snapshotCounts();
+		long totalCount = 0;
+		for (long count : counts) {
+			totalCount += count;
+		}
+		if (totalCount == 0) {
+			return 0;
+		}
+		long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long cumulativeCount = 0;
+		for (int index = 0; index < counts.length; index++) {
+			cumulativeCount += counts[index];
+			if (cumulativeCount >= countAtPercentile) {
+				return Math.max(min.get(), Math.min(max.get(), highestEquivalentValue(index)));
+			}
+		}
+		return max.get();
+	}
+
+	private long[] snapshotCounts() {
+		long[] counts = new long[COUNTS_LENGTH];
+		for (AtomicLongArray stripe : stripes) {
+			for (int index = 0; index < COUNTS_LENGTH; index++) {
+				counts[index] += stripe.get(index);
+			}
+		}
+		return counts;
+	}
+
+	static int countsIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucketIndex = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucketIndex - SUB_BUCKET_HALF_COUNT;
+	}
+
+	static long lowestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+		long subBucketIndex = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return subBucketIndex << shift;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+		return lowestEquivalentValue(index) + (1L << shift) - 1;
+	}
+}
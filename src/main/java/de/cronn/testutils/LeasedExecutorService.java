@@ -0,0 +1,156 @@
+package de.cronn.testutils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a shared executor that outlives this {@link java.util.concurrent.ExecutorService}.
+ * Shutting it down does not shut down the shared executor, but rejects new tasks and waits for the tasks submitted
+ * through this instance; {@link #shutdownNow()} cancels and returns the tasks that did not start yet and interrupts
+ * the running ones.
+ * While running a task, the thread is named {@code <threadNamePrefix><n>}, where {@code n} numbers the threads of
+ * the shared executor in the order they first ran a task of this instance.
+ */
+final class LeasedExecutorService extends AbstractExecutorService {
+
+	private final Executor executor;
+	private final String name;
+	private final String threadNamePrefix;
+	private final AtomicInteger threadCount = new AtomicInteger();
+	private final ThreadLocal<Integer> threadNumber = ThreadLocal.withInitial(threadCount::incrementAndGet);
+	private final Object lock = new Object();
+	private final Set<LeasedTask> queuedTasks = new LinkedHashSet<>();
+	private final Set<Thread> runningThreads = new HashSet<>();
+	private boolean shutdown;
+
+	LeasedExecutorService(Executor executor, String name, String threadNamePrefix) {
+		this.executor = executor;
+		this.name = name;
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	Executor getExecutor() {
+		return executor;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		LeasedTask task = new LeasedTask(command);
+		synchronized (lock) {
+			if (shutdown) {
+				throw new RejectedExecutionException("Executor of '" + name + "' is shut down");
+			}
+			queuedTasks.add(task);
+		}
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			synchronized (lock) {
+				queuedTasks.remove(task);
+				lock.notifyAll();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		List<Runnable> pendingTasks = new ArrayList<>();
+		synchronized (lock) {
+			shutdown = true;
+			// the shared executor still runs the drained tasks, but they return without running the command
+			queuedTasks.forEach(task -> pendingTasks.add(task.command));
+			queuedTasks.clear();
+			runningThreads.forEach(Thread::interrupt);
+			lock.notifyAll();
+		}
+		for (Runnable pendingTask : pendingTasks) {
+			if (pendingTask instanceof Future<?> future) {
+				future.cancel(false);
+			}
+		}
+		return pendingTasks;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		synchronized (lock) {
+			return shutdown;
+		}
+	}
+
+	@Override
+	public boolean isTerminated() {
+		synchronized (lock) {
+			return isTerminatedLocked();
+		}
+	}
+
+	private boolean isTerminatedLocked() {
+		return shutdown && queuedTasks.isEmpty() && runningThreads.isEmpty();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			while (!isTerminatedLocked()) {
+				long remainingNanos = deadlineNanos - System.nanoTime();
+				if (remainingNanos <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+			}
+			return true;
+		}
+	}
+
+	private final class LeasedTask implements Runnable {
+		private final Runnable command;
+
+		LeasedTask(Runnable command) {
+			this.command = command;
+		}
+
+		@Override
+		public void run() {
+			Thread thread = Thread.currentThread();
+			synchronized (lock) {
+				if (!queuedTasks.remove(this)) {
+					// drained by shutdownNow()
+					return;
+				}
+				runningThreads.add(thread);
+			}
+			String originalName = thread.getName();
+			thread.setName(threadNamePrefix + threadNumber.get());
+			try {
+				command.run();
+			} finally {
+				thread.setName(originalName);
+				synchronized (lock) {
+					runningThreads.remove(thread);
+					lock.notifyAll();
+				}
+				// an interrupt by shutdownNow() must not leak into the next task of the shared thread
+				Thread.interrupted();
+			}
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package de.cronn.testutils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Compares performance metrics recorded during a test with a baseline file, similar to validation files.
+ * <p>
+ * Every metric is recorded once per repetition, e.g. once per {@link ConcurrentTest} run. After the test, the mean and the
+ * standard deviation of every metric are written to {@code data/test/output/<TestClass>_<testMethod>.perf.txt} and
+ * compared with the baseline {@code data/test/validation/<TestClass>_<testMethod>.perf.txt}. The test fails only if a
+ * metric is worse than the baseline by more than the tolerance with the given confidence (one-sided Welch's t-test).
+ * The t-test needs at least two repetitions per metric, both in the test and in the baseline; a metric recorded only
+ * once fails the test unless {@link #withThresholdOnly()} is used.
+ * <p>
+ * A missing baseline is created from the current run, which fails the test. To update a baseline, copy the output
+ * file to the validation directory or delete the baseline.
+ */
+public class PerformanceBaselineExtension implements BeforeEachCallback, AfterEachCallback {
+
+	private static final String FILE_EXTENSION = ".perf.txt";
+	private static final String HEADER = "# metric direction samples mean standard-deviation";
+
+	private Path baselineDirectory = Path.of("data", "test", "validation");
+	private Path outputDirectory = Path.of("data", "test", "output");
+	private double tolerance = 0.1;
+	private double confidence = 0.95;
+	private boolean thresholdOnly;
+	private Map<String, Metric> metrics;
+
+	/**
+	 * Relative deviation from the baseline mean that is not considered a regression. Defaults to {@code 0.1}.
+	 */
+	public PerformanceBaselineExtension withTolerance(double tolerance) {
+		if (tolerance < 0) {
+			throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+		}
+		this.tolerance = tolerance;
+		return this;
+	}
+
+	/**
+	 * Confidence required to consider a metric as regressed. Defaults to {@code 0.95}.
+	 */
+	public PerformanceBaselineExtension withConfidence(double confidence) {
+		if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+		}
+		this.confidence = confidence;
+		return this;
+	}
+
+	/**
+	 * Fails if the mean of a metric is worse than the baseline mean by more than the tolerance, without a t-test, so that
+	 * metrics may be recorded only once. Noise beyond the tolerance then fails the test, so choose the tolerance accordingly.
+	 */
+	public PerformanceBaselineExtension withThresholdOnly() {
+		this.thresholdOnly = true;
+		return this;
+	}
+
+	public PerformanceBaselineExtension withBaselineDirectory(Path baselineDirectory) {
+		this.baselineDirectory = baselineDirectory;
+		return this;
+	}
+
+	public PerformanceBaselineExtension withOutputDirectory(Path outputDirectory) {
+		this.outputDirectory = outputDirectory;
+		return this;
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		metrics = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Records the throughput and, if latencies were recorded, the median and 99th percentile latency of the given run.
+	 */
+	public void record(ConcurrentTestReport report) {
+		record("", report);
+	}
+
+	public void record(String name, ConcurrentTestReport report) {
+		String prefix = name.isEmpty() ? "" : name + ".";
+		recordHigherIsBetter(prefix + "throughput", report.getThroughput());
+		report.getLatencies().ifPresent(latencies -> {
+			recordLowerIsBetter(prefix + "latency.p50", latencies.getValueAtPercentile(50));
+			recordLowerIsBetter(prefix + "latency.p99", latencies.getValueAtPercentile(99));
+		});
+	}
+
+	public void recordHigherIsBetter(String metric, double value) {
+		record(metric, Direction.HIGHER_IS_BETTER, value);
+	}
+
+	public void recordLowerIsBetter(String metric, double value) {
+		record(metric, Direction.LOWER_IS_BETTER, value);
+	}
+
+	private void record(String metric, Direction direction, double value) {
+		if (metrics == null) {
+			throw new IllegalStateException("Metrics can only be recorded during a test");
+		}
+		if (metric.isEmpty() || metric.chars().anyMatch(Character::isWhitespace)) {
+			throw new IllegalArgumentException("Illegal metric name: '" + metric + "'");
+		}
+		Metric existing = metrics.computeIfAbsent(metric, key -> new Metric(direction));
+		if (existing.direction != direction) {
+			throw new IllegalArgumentException("Metric '" + metric + "' was recorded as " + existing.direction + " before");
+		}
+		existing.values.add(value);
+	}
+
+	@Override
+	public void afterEach(ExtensionContext context) throws IOException {
+		Map<String, Summary> current = new LinkedHashMap<>();
+		metrics.forEach((name, metric) -> current.put(name, metric.summarize()));
+		metrics = null;
+		if (current.isEmpty() || context.getExecutionException().isPresent()) {
+			return;
+		}
+
+		String fileName = ExecutorServiceExtension.TestNameUtils.getTestName(context.getRequiredTestClass(),
+			context.getRequiredTestMethod().getName()) + FILE_EXTENSION;
+		assertEnoughSamples(current, "test");
+		Path outputFile = outputDirectory.resolve(fileName);
+		write(outputFile, current);
+
+		Path baselineFile = baselineDirectory.resolve(fileName);
+		if (!Files.exists(baselineFile)) {
+			write(baselineFile, current);
+			Assertions.fail("Performance baseline " + baselineFile + " did not exist and was created from the current run");
+		}
+		Map<String, Summary> baseline = read(baselineFile);
+		assertEnoughSamples(baseline, "baseline " + baselineFile);
+		List<String> regressions = findRegressions(baseline, current);
+		if (!regressions.isEmpty()) {
+			Assertions.fail(String.format("Performance regressed compared to %s (current values in %s):%n%s",
+				baselineFile, outputFile, String.join(System.lineSeparator(), regressions)));
+		}
+	}
+
+	private void assertEnoughSamples(Map<String, Summary> summaries, String source) {
+		if (thresholdOnly) {
+			return;
+		}
+		summaries.forEach((name, summary) -> {
+			if (summary.samples() < 2) {
+				throw new IllegalStateException(String.format("Metric '%s' has %d sample in the %s, but the t-test needs at least 2. "
+					+ "Record several repetitions, or compare with the tolerance only via withThresholdOnly()", name, summary.samples(), source));
+			}
+		});
+	}
+
+	private List<String> findRegressions(Map<String, Summary> baseline, Map<String, Summary> current) {
+		List<String> regressions = new ArrayList<>();
+		current.forEach((name, summary) -> {
+			Summary baselineSummary = baseline.get(name);
+			if (baselineSummary == null) {
+				regressions.add(name + " is missing in the baseline");
+			} else if (baselineSummary.direction() != summary.direction()) {
+				regressions.add(name + " is " + summary.direction() + " but " + baselineSummary.direction() + " in the baseline");
+			} else if (isRegression(baselineSummary, summary)) {
+				regressions.add(String.format(Locale.ROOT, "%s: %.4g (sd %.2g, n=%d) is worse than baseline %.4g (sd %.2g, n=%d) by more than %.0f%%",
+					name, summary.mean(), summary.standardDeviation(), summary.samples(),
+					baselineSummary.mean(), baselineSummary.standardDeviation(), baselineSummary.samples(), tolerance * 100));
+			}
+		});
+		return regressions;
+	}
+
+	private boolean isRegression(Summary baseline, Summary current) {
+		// positive differences mean that the current run is worse than the tolerated threshold
+		double difference = current.direction() == Direction.HIGHER_IS_BETTER
+			? baseline.mean() * (1 - tolerance) - current.mean()
+			: current.mean() - baseline.mean() * (1 + tolerance);
+		if (thresholdOnly) {
+			return difference > 0;
+		}
+		double baselineVariance = baseline.standardDeviation() * baseline.standardDeviation() / baseline.samples();
+		double currentVariance = current.standardDeviation() * current.standardDeviation() / current.samples();
+		double standardError = Math.sqrt(baselineVariance + currentVariance);
+		if (standardError == 0) {
+			return difference > 0;
+		}
+		double degreesOfFreedom = Math.pow(baselineVariance + currentVariance, 2)
+			/ (welchTerm(baselineVariance, baseline.samples()) + welchTerm(currentVariance, current.samples()));
+		return StudentT.cumulativeProbability(difference / standardError, degreesOfFreedom) > confidence;
+	}
+
+	private static double welchTerm(double variance, int samples) {
+		return variance * variance / (samples - 1);
+	}
+
+	private static void write(Path file, Map<String, Summary> summaries) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add(HEADER);
+		summaries.forEach((name, summary) -> lines.add(String.format(Locale.ROOT, "%s %s %d %s %s", name, summary.direction().getToken(),
+			summary.samples(), summary.mean(), summary.standardDeviation())));
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Files.write(file, lines, StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, Summary> read(Path file) throws IOException {
+		Map<String, Summary> summaries = new LinkedHashMap<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if (line.isBlank() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.trim().split("\\s+");
+			if (fields.length != 5) {
+				throw new TestUtilsRuntimeException("Malformed line in " + file + ": " + line);
+			}
+			summaries.put(fields[0], new Summary(Direction.fromToken(fields[1]), Integer.parseInt(fields[2]),
+				Double.parseDouble(fields[3]), Double.parseDouble(fields[4])));
+		}
+		return summaries;
+	}
+
+	private enum Direction {
+		HIGHER_IS_BETTER("higher"),
+		LOWER_IS_BETTER("lower");
+
+		private final String token;
+
+		Direction(String token) {
+			this.token = token;
+		}
+
+		String getToken() {
+			return token;
+		}
+
+		static Direction fromToken(String token) {
+			for (Direction direction : values()) {
+				if (direction.token.equals(token)) {
+					return direction;
+				}
+			}
+			throw new TestUtilsRuntimeException("Unknown direction: " + token);
+		}
+
+		@Override
+		public String toString() {
+			return token + " is better";
+		}
+	}
+
+	private static final class Metric {
+		private final Direction direction;
+		private final List<Double> values = new ArrayList<>();
+
+		Metric(Direction direction) {
+			this.direction = Objects.requireNonNull(direction);
+		}
+
+		Summary summarize() {
+			double mean = values.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+			double squaredDeviations = values.stream().mapToDouble(value -> (value - mean) * (value - mean)).sum();
+			double standardDeviation = values.size() > 1 ? Math.sqrt(squaredDeviations / (values.size() - 1)) : 0;
+			return new Summary(direction, values.size(), mean, standardDeviation);
+		}
+	}
+
+	private record Summary(Direction direction, int samples, double mean, double standardDeviation) {
+	}
+}
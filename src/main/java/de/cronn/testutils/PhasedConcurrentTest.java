@@ -0,0 +1,178 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Runs a scenario of several phases on {@code concurrencyLevel} workers. In every phase, each worker calls the step of
+ * the phase once with its worker index. A {@link Phaser} releases all workers into a phase at once and the next phase
+ * only starts after every worker has finished the previous one. The results of the steps are discarded.
+ */
+public class PhasedConcurrentTest {
+
+	private static final int TIMEOUT_MILLIS = 30_000;
+	// a Phaser supports at most 65535 parties, one of which is the calling thread
+	private static final int MAX_CONCURRENCY_LEVEL = 65_534;
+	private int concurrencyLevel = 10;
+	private String threadNamePrefix = PhasedConcurrentTest.class.getSimpleName();
+	private boolean virtualThreads;
+	private final Map<String, ConcurrentTest.IndexedCallable<?>> phases = new LinkedHashMap<>();
+
+	public static PhasedConcurrentTest create() {
+		return new PhasedConcurrentTest();
+	}
+
+	public PhasedConcurrentTest withPhase(String name, ConcurrentTest.IndexedCallable<?> step) {
+		if (phases.putIfAbsent(name, step) != null) {
+			throw new IllegalArgumentException("Duplicate phase: " + name);
+		}
+		return this;
+	}
+
+	public PhasedConcurrentTest withConcurrencyLevel(int concurrencyLevel) {
+		if (concurrencyLevel < 1 || concurrencyLevel > MAX_CONCURRENCY_LEVEL) {
+			throw new IllegalArgumentException(String.format("Concurrency level must be between 1 and %d (the maximum number of parties of a Phaser): %d",
+				MAX_CONCURRENCY_LEVEL, concurrencyLevel));
+		}
+		this.concurrencyLevel = concurrencyLevel;
+		return this;
+	}
+
+	public PhasedConcurrentTest withThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+		return this;
+	}
+
+	public PhasedConcurrentTest withThreadNamePrefixFromClass(Class<?> clazz) {
+		return withThreadNamePrefix(clazz.getSimpleName());
+	}
+
+	public PhasedConcurrentTest withVirtualThreads() {
+		this.virtualThreads = true;
+		return this;
+	}
+
+	public PhasedConcurrentTestReport run() throws InterruptedException, ExecutionException {
+		if (phases.isEmpty()) {
+			throw new IllegalStateException("No phases defined");
+		}
+		List<PhaseState> phaseStates = new ArrayList<>();
+		for (int i = 0; i < phases.size(); i++) {
+			phaseStates.add(new PhaseState());
+		}
+		List<ConcurrentTest.IndexedCallable<?>> steps = List.copyOf(phases.values());
+
+		// the calling thread is a party as well: it opens every phase and waits for its end
+		Phaser phaser = new Phaser(concurrencyLevel + 1);
+		AtomicBoolean workerFailed = new AtomicBoolean();
+		ExecutorService executorService = createExecutorService();
+		List<Future<Void>> futures = new ArrayList<>();
+		try {
+			for (int worker = 0; worker < concurrencyLevel; worker++) {
+				int index = worker;
+				futures.add(executorService.submit(() -> {
+					runWorker(index, steps, phaseStates, phaser, workerFailed);
+					return null;
+				}));
+			}
+			for (PhaseState phaseState : phaseStates) {
+				awaitAdvance(phaser);
+				phaseState.startNanos = System.nanoTime();
+				awaitAdvance(phaser);
+				phaseState.endNanos = System.nanoTime();
+				if (workerFailed.get()) {
+					// releases the remaining workers without starting the next phase
+					phaser.forceTermination();
+					break;
+				}
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			phaser.forceTermination();
+			ExecutorServiceUtils.shutdownOrThrow(executorService, threadNamePrefix, TIMEOUT_MILLIS);
+		}
+
+		Map<String, ConcurrentTestReport> phaseReports = new LinkedHashMap<>();
+		List<String> names = List.copyOf(phases.keySet());
+		for (int i = 0; i < names.size(); i++) {
+			phaseReports.put(names.get(i), phaseStates.get(i).toReport(concurrencyLevel));
+		}
+		return new PhasedConcurrentTestReport(phaseReports);
+	}
+
+	private static void runWorker(int index, List<ConcurrentTest.IndexedCallable<?>> steps, List<PhaseState> phaseStates, Phaser phaser,
+		AtomicBoolean workerFailed) throws Exception {
+		try {
+			for (int phase = 0; phase < steps.size(); phase++) {
+				PhaseState phaseState = phaseStates.get(phase);
+				// a negative phase means that the run was aborted
+				if (phaser.arriveAndAwaitAdvance() < 0) {
+					return;
+				}
+				long startNanos = System.nanoTime();
+				phaseState.recordStart(startNanos);
+				steps.get(phase).call(index);
+				phaseState.taskMetrics.recordTask(System.nanoTime() - startNanos, 0, 0);
+				if (phaser.arriveAndAwaitAdvance() < 0) {
+					return;
+				}
+			}
+		} catch (Exception | Error e) {
+			// let the remaining workers and the calling thread finish the phase without this worker
+			workerFailed.set(true);
+			phaser.arriveAndDeregister();
+			throw e;
+		}
+	}
+
+	private void awaitAdvance(Phaser phaser) throws InterruptedException {
+		int phase = phaser.arrive();
+		try {
+			phaser.awaitAdvanceInterruptibly(phase, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			Assertions.fail(String.format("Only %d of %d workers of '%s' arrived at the barrier within %d ms",
+				phaser.getArrivedParties() - 1, concurrencyLevel, threadNamePrefix, TIMEOUT_MILLIS), e);
+		}
+	}
+
+	private ExecutorService createExecutorService() {
+		if (virtualThreads) {
+			ThreadFactory threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+			return Executors.newThreadPerTaskExecutor(threadFactory);
+		}
+		return Executors.newFixedThreadPool(concurrencyLevel, new ConcurrentTest.NamedThreadFactory(threadNamePrefix));
+	}
+
+	private static class PhaseState {
+		private final TaskMetrics taskMetrics = new TaskMetrics(true, false);
+		private final LongAccumulator lastStartNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+		private long startNanos;
+		private long endNanos;
+
+		void recordStart(long nanos) {
+			lastStartNanos.accumulate(nanos);
+		}
+
+		ConcurrentTestReport toReport(int taskCount) {
+			Duration startSkew = Duration.ofNanos(Math.max(0, lastStartNanos.get() - startNanos));
+			return new ConcurrentTestReport(taskCount, Duration.ofNanos(endNanos - startNanos), startSkew, taskMetrics, null);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package de.cronn.testutils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput and latencies of every phase of a {@link PhasedConcurrentTest}, in the order of the phases.
+ */
+public class PhasedConcurrentTestReport {
+
+	private final Map<String, ConcurrentTestReport> phases;
+
+	PhasedConcurrentTestReport(Map<String, ConcurrentTestReport> phases) {
+		this.phases = Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+	}
+
+	public List<String> getPhaseNames() {
+		return List.copyOf(phases.keySet());
+	}
+
+	public ConcurrentTestReport getPhase(String name) {
+		ConcurrentTestReport report = phases.get(name);
+		if (report == null) {
+			throw new IllegalArgumentException("Unknown phase: " + name);
+		}
+		return report;
+	}
+
+	@Override
+	public String toString() {
+		return phases.entrySet().stream()
+			.map(phase -> phase.getKey() + ": " + phase.getValue())
+			.collect(Collectors.joining("\n"));
+	}
+}
@@ -0,0 +1,80 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of a {@link ProducerConsumerTest}: end-to-end throughput, handoff latencies and the backlog over time.
+ */
+public class ProducerConsumerReport {
+
+	private final long producedItems;
+	private final long consumedItems;
+	private final Duration duration;
+	private final Histogram handoffLatencies;
+	private final List<BacklogSample> backlogSamples;
+
+	ProducerConsumerReport(long producedItems, long consumedItems, Duration duration, Histogram handoffLatencies,
+		List<BacklogSample> backlogSamples) {
+		this.producedItems = producedItems;
+		this.consumedItems = consumedItems;
+		this.duration = duration;
+		this.handoffLatencies = handoffLatencies;
+		this.backlogSamples = List.copyOf(backlogSamples);
+	}
+
+	public long getProducedItems() {
+		return producedItems;
+	}
+
+	public long getConsumedItems() {
+		return consumedItems;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return consumed items per second
+	 */
+	public double getThroughput() {
+		return consumedItems / (duration.toNanos() / 1e9);
+	}
+
+	/**
+	 * @return the time from the start of producing each item until it was consumed, in nanoseconds
+	 */
+	public Histogram getHandoffLatencies() {
+		return handoffLatencies;
+	}
+
+	public List<BacklogSample> getBacklogSamples() {
+		return backlogSamples;
+	}
+
+	public long getMaxBacklog() {
+		return backlogSamples.stream().mapToLong(BacklogSample::backlog).max().orElse(0);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%d items in %s (%.1f items/s), max backlog: %d",
+			consumedItems, ConcurrentTestReport.formatNanos(duration.toNanos()), getThroughput(), getMaxBacklog()));
+		if (handoffLatencies.getTotalCount() > 0) {
+			report.append(String.format(Locale.ROOT, ", handoff latency p50: %s, p99: %s, max: %s",
+				ConcurrentTestReport.formatNanos(handoffLatencies.getValueAtPercentile(50)),
+				ConcurrentTestReport.formatNanos(handoffLatencies.getValueAtPercentile(99)),
+				ConcurrentTestReport.formatNanos(handoffLatencies.getMax())));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Number of produced but not yet consumed items at the given time since the start of the run.
+	 */
+	public record BacklogSample(Duration elapsed, long backlog) {
+	}
+}
@@ -0,0 +1,221 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Runs producer and consumer tasks against a shared component such as a queue, a pipeline or a cache.
+ * <p>
+ * The producer is called with increasing item indices and returns the item it handed to the component.
+ * The consumer is called with the index of the consumer worker and returns the item it took from the component,
+ * or {@code null} if no item was available. Items must be distinct according to {@link Object#equals(Object)},
+ * so that the handoff latency from the start of producing an item until it was consumed can be measured.
+ * <p>
+ * Consumers that find no item are parked briefly before they are called again. Consumers may also block until an item
+ * is available, e.g. in {@code BlockingQueue.take()}: once production is done and the backlog is drained, the consumer
+ * threads are interrupted, and exceptions thrown by consumers from then on are ignored.
+ */
+public class ProducerConsumerTest<T> {
+
+	private static final int TIMEOUT_MILLIS = 30_000;
+	private static final long IDLE_CONSUMER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private final ConcurrentTest.IndexedCallable<T> producer;
+	private final ConcurrentTest.IndexedCallable<T> consumer;
+	private int producers = 1;
+	private int consumers = 1;
+	private String threadNamePrefix = ProducerConsumerTest.class.getSimpleName();
+	private Duration backlogSamplingInterval = Duration.ofMillis(10);
+
+	public ProducerConsumerTest(ConcurrentTest.IndexedCallable<T> producer, ConcurrentTest.IndexedCallable<T> consumer) {
+		this.producer = producer;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * @param consumer returns the consumed item or {@code null} if none was available; may block until an item is
+	 * available, as it is interrupted at the end of the run
+	 */
+	public static <T> ProducerConsumerTest<T> create(ConcurrentTest.IndexedCallable<T> producer, ConcurrentTest.IndexedCallable<T> consumer) {
+		return new ProducerConsumerTest<>(producer, consumer);
+	}
+
+	public ProducerConsumerTest<T> withProducers(int producers) {
+		this.producers = producers;
+		return this;
+	}
+
+	public ProducerConsumerTest<T> withConsumers(int consumers) {
+		this.consumers = consumers;
+		return this;
+	}
+
+	public ProducerConsumerTest<T> withThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+		return this;
+	}
+
+	public ProducerConsumerTest<T> withThreadNamePrefixFromClass(Class<?> clazz) {
+		return withThreadNamePrefix(clazz.getSimpleName());
+	}
+
+	public ProducerConsumerTest<T> withBacklogSamplingInterval(Duration backlogSamplingInterval) {
+		this.backlogSamplingInterval = backlogSamplingInterval;
+		return this;
+	}
+
+	/**
+	 * Produces items for the given duration and waits until the consumers consumed all of them.
+	 */
+	public ProducerConsumerReport runFor(Duration duration) throws InterruptedException, ExecutionException {
+		return run(System.nanoTime() + duration.toNanos(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Produces the given number of items and waits until the consumers consumed all of them.
+	 */
+	public ProducerConsumerReport runForItemCount(int itemCount) throws InterruptedException, ExecutionException {
+		return run(Long.MAX_VALUE, itemCount);
+	}
+
+	private ProducerConsumerReport run(long producingDeadlineNanos, int itemCount) throws InterruptedException, ExecutionException {
+		RunState<T> runState = new RunState<>(itemCount);
+		ExecutorService producerExecutor = Executors.newFixedThreadPool(producers, new ConcurrentTest.NamedThreadFactory(threadNamePrefix + "-producer-"));
+		ExecutorService consumerExecutor = Executors.newFixedThreadPool(consumers, new ConcurrentTest.NamedThreadFactory(threadNamePrefix + "-consumer-"));
+		List<Future<Void>> producerFutures = new ArrayList<>();
+		List<Future<Void>> consumerFutures = new ArrayList<>();
+		List<ProducerConsumerReport.BacklogSample> backlogSamples = new ArrayList<>();
+		long startNanos = System.nanoTime();
+		long endNanos;
+		try {
+			for (int i = 0; i < producers; i++) {
+				producerFutures.add(producerExecutor.submit(() -> produce(runState)));
+			}
+			for (int i = 0; i < consumers; i++) {
+				int consumerIndex = i;
+				consumerFutures.add(consumerExecutor.submit(() -> consume(consumerIndex, runState)));
+			}
+
+			long lastProgressNanos = System.nanoTime();
+			long lastConsumedItems = 0;
+			while (!allDone(producerFutures) || runState.getBacklog() > 0) {
+				TimeUnit.NANOSECONDS.sleep(backlogSamplingInterval.toNanos());
+				long nowNanos = System.nanoTime();
+				backlogSamples.add(new ProducerConsumerReport.BacklogSample(Duration.ofNanos(nowNanos - startNanos), runState.getBacklog()));
+				if (nowNanos - producingDeadlineNanos >= 0) {
+					runState.stopProducing = true;
+				}
+				assertNoTaskFailed(producerFutures);
+				assertNoTaskFailed(consumerFutures);
+				long consumedItems = runState.consumedItems.get();
+				if (consumedItems != lastConsumedItems) {
+					lastConsumedItems = consumedItems;
+					lastProgressNanos = nowNanos;
+				} else if (TimeUnit.NANOSECONDS.toMillis(nowNanos - lastProgressNanos) > TIMEOUT_MILLIS) {
+					Assertions.fail(String.format("Consumers of '%s' did not consume any of %d remaining items within %d ms",
+						threadNamePrefix, runState.getBacklog(), TIMEOUT_MILLIS));
+				}
+			}
+			endNanos = System.nanoTime();
+		} finally {
+			runState.stopProducing = true;
+			runState.stopConsuming = true;
+			ExecutorServiceUtils.shutdownOrThrow(producerExecutor, threadNamePrefix + "-producer", TIMEOUT_MILLIS);
+			// consumers blocked on an empty component do not see the stop flag
+			consumerExecutor.shutdownNow();
+			ExecutorServiceUtils.shutdownOrThrow(consumerExecutor, threadNamePrefix + "-consumer", TIMEOUT_MILLIS);
+		}
+		assertNoTaskFailed(producerFutures);
+		assertNoTaskFailed(consumerFutures);
+		return new ProducerConsumerReport(runState.producedItems.get(), runState.consumedItems.get(), Duration.ofNanos(endNanos - startNanos),
+			runState.handoffLatencies, backlogSamples);
+	}
+
+	private Void produce(RunState<T> runState) throws Exception {
+		while (!runState.stopProducing) {
+			int index = runState.nextItemIndex.getAndIncrement();
+			if (index >= runState.itemCount || index < 0) {
+				break;
+			}
+			long produceNanos = System.nanoTime();
+			T item = producer.call(index);
+			runState.producedItems.incrementAndGet();
+			runState.recordHandoff(item, produceNanos, true);
+		}
+		return null;
+	}
+
+	private Void consume(int consumerIndex, RunState<T> runState) throws Exception {
+		while (!runState.stopConsuming) {
+			T item;
+			try {
+				item = consumer.call(consumerIndex);
+			} catch (Exception e) {
+				if (runState.stopConsuming) {
+					// caused by the interrupt at the end of the run
+					return null;
+				}
+				throw e;
+			}
+			if (item == null) {
+				LockSupport.parkNanos(IDLE_CONSUMER_PARK_NANOS);
+				continue;
+			}
+			runState.recordHandoff(item, System.nanoTime(), false);
+			runState.consumedItems.incrementAndGet();
+		}
+		return null;
+	}
+
+	private static boolean allDone(List<Future<Void>> futures) {
+		return futures.stream().allMatch(Future::isDone);
+	}
+
+	private static void assertNoTaskFailed(List<Future<Void>> futures) throws InterruptedException, ExecutionException {
+		for (Future<Void> future : futures) {
+			if (future.isDone()) {
+				future.get();
+			}
+		}
+	}
+
+	private static class RunState<T> {
+		private final int itemCount;
+		private final AtomicInteger nextItemIndex = new AtomicInteger();
+		private final AtomicLong producedItems = new AtomicLong();
+		private final AtomicLong consumedItems = new AtomicLong();
+		// holds the produce time or the consume time of an item, whichever was recorded first
+		private final ConcurrentMap<T, Long> pendingHandoffs = new ConcurrentHashMap<>();
+		private final Histogram handoffLatencies = new Histogram();
+		private volatile boolean stopProducing;
+		private volatile boolean stopConsuming;
+
+		RunState(int itemCount) {
+			this.itemCount = itemCount;
+		}
+
+		long getBacklog() {
+			return Math.max(0, producedItems.get() - consumedItems.get());
+		}
+
+		void recordHandoff(T item, long nanos, boolean produced) {
+			Long otherNanos = pendingHandoffs.putIfAbsent(item, nanos);
+			if (otherNanos != null) {
+				pendingHandoffs.remove(item);
+				handoffLatencies.recordValue(Math.max(0, produced ? otherNanos - nanos : nanos - otherNanos));
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package de.cronn.testutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Throughput per concurrency level of a {@link ConcurrentTest#runScalabilitySweep(ScalabilitySweep) scalability sweep},
+ * including a fit of the <a href="http://www.perfdynamics.com/Manifesto/USLscalability.html">Universal Scalability Law</a>
+ * {@code X(N) = X(1) * N / (1 + σ(N - 1) + κN(N - 1))}.
+ */
+public class ScalabilityReport {
+
+	private final List<Level> levels;
+	private final double contention;
+	private final double coherency;
+
+	ScalabilityReport(List<Integer> concurrencyLevels, List<Double> throughputs) {
+		if (concurrencyLevels.isEmpty() || concurrencyLevels.get(0) != 1) {
+			throw new IllegalArgumentException("Concurrency levels must start at 1: " + concurrencyLevels);
+		}
+		double baseThroughput = throughputs.get(0);
+		List<Level> levels = new ArrayList<>();
+		for (int i = 0; i < concurrencyLevels.size(); i++) {
+			levels.add(new Level(concurrencyLevels.get(i), throughputs.get(i), throughputs.get(i) / baseThroughput));
+		}
+		this.levels = Collections.unmodifiableList(levels);
+
+		double sumX1X1 = 0;
+		double sumX1X2 = 0;
+		double sumX2X2 = 0;
+		double sumX1Y = 0;
+		double sumX2Y = 0;
+		for (Level level : levels) {
+			double n = level.concurrencyLevel();
+			double x1 = n - 1;
+			double x2 = n * (n - 1);
+			double y = n / level.speedup() - 1;
+			sumX1X1 += x1 * x1;
+			sumX1X2 += x1 * x2;
+			sumX2X2 += x2 * x2;
+			sumX1Y += x1 * y;
+			sumX2Y += x2 * y;
+		}
+		double determinant = sumX1X1 * sumX2X2 - sumX1X2 * sumX1X2;
+		if (Math.abs(determinant) > 1e-9) {
+			this.contention = (sumX1Y * sumX2X2 - sumX2Y * sumX1X2) / determinant;
+			this.coherency = (sumX1X1 * sumX2Y - sumX1X2 * sumX1Y) / determinant;
+		} else if (sumX1X1 > 0) {
+			this.contention = sumX1Y / sumX1X1;
+			this.coherency = 0;
+		} else {
+			this.contention = 0;
+			this.coherency = 0;
+		}
+	}
+
+	public List<Level> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * @return the USL contention coefficient σ, i.e. the serialized fraction of the work
+	 */
+	public double getContention() {
+		return contention;
+	}
+
+	/**
+	 * @return the USL coherency coefficient κ, i.e. the cost of keeping shared state consistent between workers
+	 */
+	public double getCoherency() {
+		return coherency;
+	}
+
+	/**
+	 * @return the concurrency level at which the fitted USL predicts the maximum throughput,
+	 * or {@link Double#POSITIVE_INFINITY} if it predicts no retrograde scaling
+	 */
+	public double getPeakConcurrencyLevel() {
+		if (coherency <= 0 || contention >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.sqrt((1 - contention) / coherency);
+	}
+
+	public String toMarkdownTable() {
+		StringBuilder table = new StringBuilder();
+		table.append("| Concurrency | Throughput [calls/s] | Speedup | Efficiency |\n");
+		table.append("|------------:|---------------------:|--------:|-----------:|\n");
+		for (Level level : levels) {
+			table.append(String.format(Locale.ROOT, "| %d | %.1f | %.2f | %.1f %% |\n",
+				level.concurrencyLevel(), level.throughput(), level.speedup(), level.efficiency() * 100));
+		}
+		table.append(String.format(Locale.ROOT, "\nUSL fit: σ (contention) = %.5f, κ (coherency) = %.6f, peak concurrency ≈ %.1f\n",
+			contention, coherency, getPeakConcurrencyLevel()));
+		return table.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toMarkdownTable();
+	}
+
+	public record Level(int concurrencyLevel, double throughput, double speedup) {
+
+		public double efficiency() {
+			return speedup / concurrencyLevel;
+		}
+	}
+}
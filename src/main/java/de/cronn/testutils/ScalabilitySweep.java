@@ -0,0 +1,75 @@
+package de.cronn.testutils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScalabilitySweep {
+
+	private final int maxConcurrencyLevel;
+	private int warmUpRounds = 3;
+	private int measuredRounds = 5;
+	private int callsPerWorker = 100;
+
+	private ScalabilitySweep(int maxConcurrencyLevel) {
+		if (maxConcurrencyLevel < 1) {
+			throw new IllegalArgumentException("Maximum concurrency level must be positive: " + maxConcurrencyLevel);
+		}
+		this.maxConcurrencyLevel = maxConcurrencyLevel;
+	}
+
+	/**
+	 * Sweeps the concurrency levels 1, 2, 4, … up to and including the given maximum.
+	 */
+	public static ScalabilitySweep upToConcurrencyLevel(int maxConcurrencyLevel) {
+		return new ScalabilitySweep(maxConcurrencyLevel);
+	}
+
+	public ScalabilitySweep withWarmUpRounds(int warmUpRounds) {
+		if (warmUpRounds < 0) {
+			throw new IllegalArgumentException("Warm-up rounds must not be negative: " + warmUpRounds);
+		}
+		this.warmUpRounds = warmUpRounds;
+		return this;
+	}
+
+	public ScalabilitySweep withMeasuredRounds(int measuredRounds) {
+		if (measuredRounds < 1) {
+			throw new IllegalArgumentException("At least one measured round is required: " + measuredRounds);
+		}
+		this.measuredRounds = measuredRounds;
+		return this;
+	}
+
+	public ScalabilitySweep withCallsPerWorker(int callsPerWorker) {
+		if (callsPerWorker < 1) {
+			throw new IllegalArgumentException("At least one call per worker is required: " + callsPerWorker);
+		}
+		this.callsPerWorker = callsPerWorker;
+		return this;
+	}
+
+	public int getMaxConcurrencyLevel() {
+		return maxConcurrencyLevel;
+	}
+
+	public int getWarmUpRounds() {
+		return warmUpRounds;
+	}
+
+	public int getMeasuredRounds() {
+		return measuredRounds;
+	}
+
+	public int getCallsPerWorker() {
+		return callsPerWorker;
+	}
+
+	List<Integer> getConcurrencyLevels() {
+		List<Integer> concurrencyLevels = new ArrayList<>();
+		for (int concurrencyLevel = 1; concurrencyLevel < maxConcurrencyLevel; concurrencyLevel *= 2) {
+			concurrencyLevels.add(concurrencyLevel);
+		}
+		concurrencyLevels.add(maxConcurrencyLevel);
+		return concurrencyLevels;
+	}
+}
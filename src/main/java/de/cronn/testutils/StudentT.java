@@ -0,0 +1,79 @@
+package de.cronn.testutils;
+
+/**
+ * Cumulative distribution function of Student's t-distribution, based on the regularized incomplete beta function
+ * as described in <i>Numerical Recipes</i>.
+ */
+final class StudentT {
+
+	private static final int MAX_ITERATIONS = 300;
+	private static final double EPSILON = 1e-14;
+	private static final double TINY = 1e-300;
+	private static final double[] LANCZOS_COEFFICIENTS = {
+		76.18009172947146, -86.50532032941677, 24.01409824083091,
+		-1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5
+	};
+
+	private StudentT() {
+	}
+
+	static double cumulativeProbability(double t, double degreesOfFreedom) {
+		if (Double.isInfinite(t)) {
+			return t > 0 ? 1 : 0;
+		}
+		double x = degreesOfFreedom / (degreesOfFreedom + t * t);
+		double tail = 0.5 * regularizedIncompleteBeta(x, degreesOfFreedom / 2, 0.5);
+		return t > 0 ? 1 - tail : tail;
+	}
+
+	static double regularizedIncompleteBeta(double x, double a, double b) {
+		if (x <= 0) {
+			return 0;
+		}
+		if (x >= 1) {
+			return 1;
+		}
+		double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+		if (x < (a + 1) / (a + b + 2)) {
+			return front * continuedFraction(x, a, b) / a;
+		}
+		return 1 - front * continuedFraction(1 - x, b, a) / b;
+	}
+
+	private static double continuedFraction(double x, double a, double b) {
+		double c = 1;
+		double d = nonZero(1 - (a + b) * x / (a + 1));
+		d = 1 / d;
+		double result = d;
+		for (int m = 1; m <= MAX_ITERATIONS; m++) {
+			int m2 = 2 * m;
+			double even = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+			d = 1 / nonZero(1 + even * d);
+			c = nonZero(1 + even / c);
+			result *= d * c;
+			double odd = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+			d = 1 / nonZero(1 + odd * d);
+			c = nonZero(1 + odd / c);
+			double delta = d * c;
+			result *= delta;
+			if (Math.abs(delta - 1) < EPSILON) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static double nonZero(double value) {
+		return Math.abs(value) < TINY ? TINY : value;
+	}
+
+	private static double logGamma(double x) {
+		double denominator = x;
+		double series = 1.000000000190015;
+		for (double coefficient : LANCZOS_COEFFICIENTS) {
+			series += coefficient / ++denominator;
+		}
+		double tmp = x + 5.5;
+		return (x + 0.5) * Math.log(tmp) - tmp + Math.log(2.5066282746310005 * series / x);
+	}
+}
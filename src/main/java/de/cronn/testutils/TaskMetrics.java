@@ -0,0 +1,70 @@
+package de.cronn.testutils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+final class TaskMetrics {
+
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	private final Histogram latencies;
+	private final Histogram cpuTimes;
+	private final Histogram allocatedBytes;
+
+	TaskMetrics(boolean latencyRecording, boolean resourceAccounting) {
+		this.latencies = latencyRecording ? new Histogram() : null;
+		if (resourceAccounting) {
+			enableResourceAccounting();
+			this.cpuTimes = new Histogram();
+			this.allocatedBytes = new Histogram();
+		} else {
+			this.cpuTimes = null;
+			this.allocatedBytes = null;
+		}
+	}
+
+	private static void enableResourceAccounting() {
+		if (!THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+			throw new UnsupportedOperationException("The JVM does not support measuring the CPU time of threads");
+		}
+		if (!(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean threadMXBean) || !threadMXBean.isThreadAllocatedMemorySupported()) {
+			throw new UnsupportedOperationException("The JVM does not support measuring the allocated memory of threads");
+		}
+		if (!THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+			THREAD_MX_BEAN.setThreadCpuTimeEnabled(true);
+		}
+		if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+			threadMXBean.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	long currentThreadCpuTime() {
+		return cpuTimes != null ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+	}
+
+	long currentThreadAllocatedBytes() {
+		return allocatedBytes != null ? ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getCurrentThreadAllocatedBytes() : 0;
+	}
+
+	void recordTask(long latencyNanos, long cpuTimeBefore, long allocatedBytesBefore) {
+		if (cpuTimes != null) {
+			cpuTimes.recordValue(THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuTimeBefore);
+			allocatedBytes.recordValue(currentThreadAllocatedBytes() - allocatedBytesBefore);
+		}
+		if (latencies != null) {
+			latencies.recordValue(latencyNanos);
+		}
+	}
+
+	Histogram getLatencies() {
+		return latencies;
+	}
+
+	Histogram getCpuTimes() {
+		return cpuTimes;
+	}
+
+	Histogram getAllocatedBytes() {
+		return allocatedBytes;
+	}
+}
@@ -0,0 +1,219 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Gives every test a task scope with the lifecycle guarantees of {@code java.util.concurrent.StructuredTaskScope}:
+ * subtasks are forked on virtual threads named after the test, {@link #join()} waits for them until the deadline
+ * derived from the test timeout, and the scope shuts down as soon as a subtask fails (default) or succeeds,
+ * which cancels all sibling subtasks. After the test, all remaining subtasks are cancelled and their threads
+ * must terminate within the test timeout.
+ */
+public class TaskScopeExtension implements BeforeEachCallback, AfterEachCallback {
+
+	private final Duration testTimeout;
+	private boolean shutdownOnSuccess;
+	private Scope scope;
+
+	public TaskScopeExtension(long testTimeoutMillis) {
+		this(Duration.ofMillis(testTimeoutMillis));
+	}
+
+	public TaskScopeExtension(Duration testTimeout) {
+		this.testTimeout = testTimeout;
+	}
+
+	/**
+	 * Shuts down the scope when the first subtask fails. {@link #join()} then throws the failure. This is the default.
+	 */
+	public TaskScopeExtension withShutdownOnFailure() {
+		this.shutdownOnSuccess = false;
+		return this;
+	}
+
+	/**
+	 * Shuts down the scope when the first subtask succeeds, e.g. to race redundant requests.
+	 * {@link #join()} only throws if all subtasks failed.
+	 */
+	public TaskScopeExtension withShutdownOnSuccess() {
+		this.shutdownOnSuccess = true;
+		return this;
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		String testName = ExecutorServiceExtension.TestNameUtils.getTestName(context.getRequiredTestClass(),
+			context.getRequiredTestMethod().getName());
+		scope = new Scope(testName, System.nanoTime() + testTimeout.toNanos());
+	}
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		scope.shutdown();
+		ExecutorServiceUtils.shutdownOrThrow(scope.executorService, scope.name, testTimeout);
+	}
+
+	/**
+	 * Starts the given subtask on a new virtual thread. If the scope is already shut down, the subtask is not started
+	 * and the returned future is cancelled.
+	 */
+	public <T> Future<T> fork(Callable<T> callable) {
+		return scope.fork(callable);
+	}
+
+	/**
+	 * Waits until all subtasks completed or the scope was shut down.
+	 *
+	 * @throws ExecutionException of the first failed subtask if the scope shuts down on failure, or if all subtasks failed
+	 * and the scope shuts down on success
+	 * @throws TimeoutException if the deadline derived from the test timeout passed; the scope is shut down
+	 */
+	public void join() throws InterruptedException, ExecutionException, TimeoutException {
+		scope.join();
+	}
+
+	/**
+	 * The result of the first subtask that completed successfully, typically called after {@link #join()} in a scope that
+	 * {@linkplain #withShutdownOnSuccess() shuts down on success}.
+	 *
+	 * @throws ExecutionException of the first failed subtask if no subtask completed successfully
+	 * @throws IllegalStateException if the scope does not shut down on success, or if no subtask completed yet
+	 */
+	public <T> T result() throws ExecutionException {
+		if (!shutdownOnSuccess) {
+			throw new IllegalStateException("result() requires a scope that shuts down on success");
+		}
+		return scope.result();
+	}
+
+	/**
+	 * Cancels all subtasks that did not complete yet and interrupts their threads.
+	 */
+	public void shutdown() {
+		scope.shutdown();
+	}
+
+	private final class Scope {
+		private final String name;
+		private final long deadlineNanos;
+		private final ExecutorService executorService;
+		private final Set<Subtask<?>> subtasks = ConcurrentHashMap.newKeySet();
+		private final AtomicInteger pendingSubtasks = new AtomicInteger();
+		private final AtomicReference<Future<?>> firstFailure = new AtomicReference<>();
+		private final AtomicReference<Future<?>> firstSuccess = new AtomicReference<>();
+		private final Object lock = new Object();
+		private volatile boolean shutdown;
+
+		Scope(String name, long deadlineNanos) {
+			this.name = name;
+			this.deadlineNanos = deadlineNanos;
+			this.executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+		}
+
+		<T> Future<T> fork(Callable<T> callable) {
+			Subtask<T> subtask = new Subtask<>(callable, this);
+			pendingSubtasks.incrementAndGet();
+			subtasks.add(subtask);
+			if (shutdown) {
+				subtask.cancel(false);
+			} else {
+				executorService.execute(subtask);
+			}
+			return subtask;
+		}
+
+		void subtaskCompleted(Subtask<?> subtask) {
+			subtasks.remove(subtask);
+			switch (subtask.state()) {
+				case FAILED -> {
+					if (firstFailure.compareAndSet(null, subtask) && !shutdownOnSuccess) {
+						shutdown();
+					}
+				}
+				case SUCCESS -> {
+					if (firstSuccess.compareAndSet(null, subtask) && shutdownOnSuccess) {
+						shutdown();
+					}
+				}
+				default -> {
+				}
+			}
+			pendingSubtasks.decrementAndGet();
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+
+		void join() throws InterruptedException, ExecutionException, TimeoutException {
+			synchronized (lock) {
+				while (pendingSubtasks.get() > 0 && !shutdown) {
+					long remainingNanos = deadlineNanos - System.nanoTime();
+					if (remainingNanos <= 0) {
+						int pending = pendingSubtasks.get();
+						shutdown();
+						throw new TimeoutException(String.format("%d subtasks of '%s' did not complete within %d ms",
+							pending, name, testTimeout.toMillis()));
+					}
+					TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+				}
+			}
+			Future<?> failure = firstFailure.get();
+			if (failure != null && (!shutdownOnSuccess || firstSuccess.get() == null)) {
+				failure.get();
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> T result() throws ExecutionException {
+			Future<?> success = firstSuccess.get();
+			if (success != null) {
+				return (T) success.resultNow();
+			}
+			Future<?> failure = firstFailure.get();
+			if (failure != null) {
+				throw new ExecutionException(failure.exceptionNow());
+			}
+			throw new IllegalStateException(String.format("No subtask of '%s' completed", name));
+		}
+
+		void shutdown() {
+			shutdown = true;
+			for (Subtask<?> subtask : subtasks) {
+				subtask.cancel(true);
+			}
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private static final class Subtask<T> extends FutureTask<T> {
+		private final Scope scope;
+
+		Subtask(Callable<T> callable, Scope scope) {
+			super(callable);
+			this.scope = scope;
+		}
+
+		@Override
+		protected void done() {
+			scope.subtaskCompleted(this);
+		}
+	}
+}
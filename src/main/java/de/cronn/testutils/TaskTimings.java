@@ -0,0 +1,68 @@
+package de.cronn.testutils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+final class TaskTimings {
+
+	// allocated on the first submit, as the striped histograms are too large to create for every test
+	private volatile Histograms histograms;
+	private final AtomicInteger inFlightTasks = new AtomicInteger();
+	private final AtomicInteger runningTasks = new AtomicInteger();
+	private final LongAccumulator peakInFlightTasks = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator peakRunningTasks = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Counts the task as in flight until {@link #taskCompleted()} is called and records its queue wait and run time.
+	 */
+	<T> Callable<T> submitted(Callable<T> callable) {
+		Histograms histograms = getOrCreateHistograms();
+		long submitNanos = System.nanoTime();
+		peakInFlightTasks.accumulate(inFlightTasks.incrementAndGet());
+		return () -> {
+			long startNanos = System.nanoTime();
+			histograms.queueWaitTimes().recordValue(startNanos - submitNanos);
+			peakRunningTasks.accumulate(runningTasks.incrementAndGet());
+			try {
+				return callable.call();
+			} finally {
+				runningTasks.decrementAndGet();
+				histograms.runTimes().recordValue(System.nanoTime() - startNanos);
+			}
+		};
+	}
+
+	private Histograms getOrCreateHistograms() {
+		Histograms result = histograms;
+		if (result == null) {
+			synchronized (this) {
+				result = histograms;
+				if (result == null) {
+					result = new Histograms(new Histogram(), new Histogram());
+					histograms = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	void taskCompleted() {
+		inFlightTasks.decrementAndGet();
+	}
+
+	boolean hasSubmittedTasks() {
+		return histograms != null;
+	}
+
+	ExecutorServiceReport toReport() {
+		Histograms result = histograms;
+		if (result == null) {
+			result = new Histograms(new Histogram(), new Histogram());
+		}
+		return new ExecutorServiceReport(result.queueWaitTimes(), result.runTimes(), peakInFlightTasks.intValue(), peakRunningTasks.intValue());
+	}
+
+	private record Histograms(Histogram queueWaitTimes, Histogram runTimes) {
+	}
+}
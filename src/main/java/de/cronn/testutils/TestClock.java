@@ -1,5 +1,6 @@
 package de.cronn.testutils;
 
+import java.lang.ref.WeakReference;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -8,8 +9,11 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Assertions;
 import org.slf4j.Logger;
@@ -24,6 +28,8 @@ public class TestClock extends Clock {
 
 	private final AtomicReference<Instant> instant;
 	private final ZoneId zone;
+	// weakly referenced, so that a scheduler that is never shut down does not leak via a long-lived clock
+	private final List<WeakReference<Consumer<Instant>>> windForwardListeners = new CopyOnWriteArrayList<>();
 
 	public TestClock() {
 		this(DEFAULT_TEST_INSTANT, ZoneOffset.UTC);
@@ -52,8 +58,15 @@ public class TestClock extends Clock {
 	}
 
 	public void changeInstant(Instant instant) {
-		this.instant.set(instant);
-		log.info("Setting test time to {}", instant);
+		Instant newInstant = instant;
+		if (instant.isAfter(instant())) {
+			notifyWindForwardListeners(instant);
+			// a task run by a listener may have wound the clock even further
+			newInstant = advanceTo(instant);
+		} else {
+			this.instant.set(instant);
+		}
+		log.info("Setting test time to {}", newInstant);
 	}
 
 	public void reset() {
@@ -78,7 +91,15 @@ public class TestClock extends Clock {
 		if (duration.isNegative()) {
 			throw new IllegalArgumentException(String.format("Cannot wind clock *forward* by a negative duration: %s", duration));
 		}
-		Instant newInstant = instant.updateAndGet(i -> i.plus(duration));
+		Instant newInstant;
+		if (windForwardListeners.isEmpty()) {
+			newInstant = instant.updateAndGet(i -> i.plus(duration));
+		} else {
+			newInstant = instant().plus(duration);
+			notifyWindForwardListeners(newInstant);
+			// a task run by a listener may have wound the clock even further
+			newInstant = advanceTo(newInstant);
+		}
 		log.info("Winding test time forward to {}", newInstant);
 		return newInstant;
 	}
@@ -143,6 +164,38 @@ public class TestClock extends Clock {
 		}
 	}
 
+	/**
+	 * Registers a listener that is called with the target instant before the clock is wound forward. The listener may
+	 * move the clock to intermediate instants via {@link #advanceTo(Instant)}, e.g. to run scheduled tasks at their due time.
+	 */
+	void addWindForwardListener(Consumer<Instant> listener) {
+		windForwardListeners.add(new WeakReference<>(listener));
+	}
+
+	void removeWindForwardListener(Consumer<Instant> listener) {
+		windForwardListeners.removeIf(reference -> reference.refersTo(listener) || reference.refersTo(null));
+	}
+
+	/**
+	 * Moves the clock forward without notifying the listeners and without logging. Never moves the clock backwards.
+	 *
+	 * @return the instant of the clock afterwards
+	 */
+	Instant advanceTo(Instant targetInstant) {
+		return instant.accumulateAndGet(targetInstant, (current, target) -> target.isAfter(current) ? target : current);
+	}
+
+	private void notifyWindForwardListeners(Instant targetInstant) {
+		for (WeakReference<Consumer<Instant>> reference : windForwardListeners) {
+			Consumer<Instant> listener = reference.get();
+			if (listener == null) {
+				windForwardListeners.remove(reference);
+			} else {
+				listener.accept(targetInstant);
+			}
+		}
+	}
+
 	public static TestClock defaultBerlin() {
 		return new TestClock(DEFAULT_TEST_INSTANT, ZoneId.of("Europe/Berlin"));
 	}
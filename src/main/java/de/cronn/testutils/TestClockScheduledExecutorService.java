@@ -0,0 +1,229 @@
+package de.cronn.testutils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link ScheduledExecutorService} that runs on {@link TestClock} time instead of real time.
+ * <p>
+ * Tasks wait in a priority queue ordered by their due instant. Whenever the clock is wound forward, all tasks that
+ * become due run synchronously on the winding thread, in order of their due instant. While a task runs, the clock
+ * shows its due instant, so that delays scheduled by the task, e.g. retries, are relative to the time it was due.
+ * Tasks that are due immediately run synchronously on the submitting thread.
+ * This way, a retry schedule that spans a day is verified in milliseconds and deterministically.
+ * <p>
+ * Close the executor, e.g. with try-with-resources, or shut it down to stop following the clock.
+ */
+public class TestClockScheduledExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+
+	private final TestClock clock;
+	private final Consumer<Instant> windForwardListener = this::runTasksDueUntil;
+	private final PriorityQueue<ScheduledTask<?>> queue = new PriorityQueue<>();
+	private final AtomicLong sequence = new AtomicLong();
+	private boolean shutdown;
+
+	public TestClockScheduledExecutorService(TestClock clock) {
+		this.clock = clock;
+		clock.addWindForwardListener(windForwardListener);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		schedule(command, 0, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		return schedule(Executors.callable(command), delay, unit);
+	}
+
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		return enqueue(new ScheduledTask<>(callable, dueAfter(delay, unit), null));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		return enqueue(new ScheduledTask<>(Executors.callable(command), dueAfter(initialDelay, unit), positive(period, unit)));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+		return enqueue(new ScheduledTask<>(Executors.callable(command), dueAfter(initialDelay, unit), positive(delay, unit).negated()));
+	}
+
+	/**
+	 * @return the number of tasks that are not due yet
+	 */
+	public synchronized int getQueueSize() {
+		return queue.size();
+	}
+
+	private Instant dueAfter(long delay, TimeUnit unit) {
+		return clock.instant().plus(Duration.of(Math.max(0, delay), unit.toChronoUnit()));
+	}
+
+	private static Duration positive(long period, TimeUnit unit) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Period must be positive: " + period + " " + unit);
+		}
+		return Duration.of(period, unit.toChronoUnit());
+	}
+
+	private synchronized <V> ScheduledTask<V> enqueue(ScheduledTask<V> task) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor on " + clock + " is shut down");
+		}
+		queue.add(task);
+		runTasksDueUntil(clock.instant());
+		return task;
+	}
+
+	private synchronized void runTasksDueUntil(Instant targetInstant) {
+		for (ScheduledTask<?> task = queue.peek(); task != null && !task.due.isAfter(targetInstant); task = queue.peek()) {
+			queue.poll();
+			clock.advanceTo(task.due);
+			task.run();
+		}
+		if (shutdown && queue.isEmpty()) {
+			terminate();
+		}
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		shutdown = true;
+		queue.removeIf(task -> {
+			if (task.isPeriodic()) {
+				task.cancel(false);
+				return true;
+			}
+			return false;
+		});
+		if (queue.isEmpty()) {
+			terminate();
+		}
+	}
+
+	@Override
+	public synchronized List<Runnable> shutdownNow() {
+		shutdown = true;
+		List<Runnable> pendingTasks = new ArrayList<>(queue);
+		queue.clear();
+		terminate();
+		return pendingTasks;
+	}
+
+	/**
+	 * Discards all pending tasks like {@link #shutdownNow()}. Unlike {@link java.util.concurrent.ExecutorService#close()},
+	 * it does not wait for delayed tasks, as they would only run when the clock is wound forward.
+	 */
+	@Override
+	public void close() {
+		shutdownNow();
+	}
+
+	private void terminate() {
+		clock.removeWindForwardListener(windForwardListener);
+		notifyAll();
+	}
+
+	@Override
+	public synchronized boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public synchronized boolean isTerminated() {
+		return shutdown && queue.isEmpty();
+	}
+
+	/**
+	 * Waits in real time. Delayed tasks only run when the clock is wound forward by another thread.
+	 */
+	@Override
+	public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+		while (!isTerminated()) {
+			long remainingNanos = deadlineNanos - System.nanoTime();
+			if (remainingNanos <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+		}
+		return true;
+	}
+
+	private synchronized void remove(ScheduledTask<?> task) {
+		queue.remove(task);
+	}
+
+	private final class ScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+		private final long sequenceNumber = sequence.incrementAndGet();
+		// positive for a fixed rate, negative for a fixed delay, null for one-shot tasks
+		private final Duration period;
+		private Instant due;
+
+		ScheduledTask(Callable<V> callable, Instant due, Duration period) {
+			super(callable);
+			this.due = due;
+			this.period = period;
+		}
+
+		@Override
+		public boolean isPeriodic() {
+			return period != null;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(Duration.between(clock.instant(), due));
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (other == this) {
+				return 0;
+			}
+			if (other instanceof ScheduledTask<?> otherTask) {
+				int byDue = due.compareTo(otherTask.due);
+				return byDue != 0 ? byDue : Long.compare(sequenceNumber, otherTask.sequenceNumber);
+			}
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public void run() {
+			if (!isPeriodic()) {
+				super.run();
+			} else if (runAndReset() && !shutdown) {
+				due = period.isNegative() ? clock.instant().minus(period) : due.plus(period);
+				queue.add(this);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				remove(this);
+			}
+			return cancelled;
+		}
+	}
+}
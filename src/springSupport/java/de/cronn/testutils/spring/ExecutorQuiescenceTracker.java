@@ -0,0 +1,341 @@
+package de.cronn.testutils.spring;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wraps all {@link Executor} beans of the application context, e.g. {@code ExecutorService} and {@code TaskExecutor}
+ * beans, to count their in-flight tasks, so that tests can wait until background work is done instead of sleeping.
+ * Schedulers are not wrapped, as periodic tasks never complete.
+ * <p>
+ * Register it with {@code @Import(ExecutorQuiescenceTracker.class)} and use {@link QuiescenceExtension} in tests.
+ * Executor beans whose class is final or part of the JDK are proxied by their interfaces, so they must be injected
+ * by an interface type.
+ * <p>
+ * Tasks passed to {@code execute}, {@code submit}, {@code invokeAll} and {@code invokeAny} are tracked. Tasks that
+ * never run stop counting when they are returned by {@code shutdownNow()}, or when a {@link ThreadPoolExecutor} (also
+ * within a {@link ThreadPoolTaskExecutor}) discards them by its {@code DiscardPolicy} or {@code DiscardOldestPolicy}.
+ * Tasks that are wrapped by the executor before they are queued, e.g. by a {@code TaskDecorator}, or that are
+ * discarded by other executors or custom rejection policies, keep counting as in flight.
+ */
+public class ExecutorQuiescenceTracker implements BeanPostProcessor {
+
+	private final Map<String, TrackedExecutor> trackedExecutors = new ConcurrentHashMap<>();
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!(bean instanceof Executor) || bean instanceof ScheduledExecutorService || bean instanceof TaskScheduler) {
+			return bean;
+		}
+		TrackedExecutor trackedExecutor = new TrackedExecutor();
+		trackedExecutors.put(beanName, trackedExecutor);
+		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor(bean);
+		if (threadPoolExecutor != null) {
+			threadPoolExecutor.setRejectedExecutionHandler(new TrackingRejectedExecutionHandler(threadPoolExecutor.getRejectedExecutionHandler()));
+		}
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.setProxyTargetClass(canProxyTargetClass(bean.getClass()));
+		proxyFactory.addAdvice(new TrackingInterceptor(trackedExecutor));
+		return proxyFactory.getProxy(bean.getClass().getClassLoader());
+	}
+
+	private static ThreadPoolExecutor getThreadPoolExecutor(Object bean) {
+		if (bean instanceof ThreadPoolExecutor threadPoolExecutor) {
+			return threadPoolExecutor;
+		}
+		if (bean instanceof ThreadPoolTaskExecutor threadPoolTaskExecutor) {
+			return threadPoolTaskExecutor.getThreadPoolExecutor();
+		}
+		return null;
+	}
+
+	private static boolean canProxyTargetClass(Class<?> beanClass) {
+		int modifiers = beanClass.getModifiers();
+		return Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers) && !beanClass.getName().startsWith("java.");
+	}
+
+	/**
+	 * Waits until no executor bean has tasks in flight and fails with the busy executors if the timeout elapses.
+	 */
+	public void awaitQuiescence(Duration timeout) throws InterruptedException {
+		long deadlineNanos = System.nanoTime() + timeout.toNanos();
+		synchronized (this) {
+			List<String> busyExecutors = getBusyExecutors();
+			while (!busyExecutors.isEmpty()) {
+				long remainingNanos = deadlineNanos - System.nanoTime();
+				if (remainingNanos <= 0) {
+					Assertions.fail(String.format("Executors did not become idle within %d ms: %s",
+						timeout.toMillis(), String.join(", ", busyExecutors)));
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+				busyExecutors = getBusyExecutors();
+			}
+		}
+	}
+
+	private List<String> getBusyExecutors() {
+		List<String> busyExecutors = new ArrayList<>();
+		trackedExecutors.forEach((beanName, trackedExecutor) -> {
+			int inFlightTasks = trackedExecutor.inFlightTasks.get();
+			if (inFlightTasks > 0) {
+				busyExecutors.add(String.format("%s (%d tasks in flight)", beanName, inFlightTasks));
+			}
+		});
+		return busyExecutors;
+	}
+
+	private final class TrackedExecutor {
+		private final AtomicInteger inFlightTasks = new AtomicInteger();
+
+		void taskSubmitted() {
+			inFlightTasks.incrementAndGet();
+		}
+
+		void taskCompleted() {
+			if (inFlightTasks.decrementAndGet() == 0) {
+				synchronized (ExecutorQuiescenceTracker.this) {
+					ExecutorQuiescenceTracker.this.notifyAll();
+				}
+			}
+		}
+	}
+
+	private static final class TrackingInterceptor implements MethodInterceptor {
+		private final TrackedExecutor trackedExecutor;
+
+		TrackingInterceptor(TrackedExecutor trackedExecutor) {
+			this.trackedExecutor = trackedExecutor;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			Method method = invocation.getMethod();
+			Object[] arguments = invocation.getArguments();
+			switch (method.getName()) {
+				case "shutdownNow" -> {
+					return shutdownNow(invocation);
+				}
+				case "invokeAll", "invokeAny" -> {
+					return invokeTracked(invocation);
+				}
+				default -> {
+					if (!method.getName().startsWith("execute") && !method.getName().startsWith("submit")) {
+						return invocation.proceed();
+					}
+				}
+			}
+			if (method.getName().equals("submit") && method.getReturnType() == Future.class && arguments.length > 0) {
+				// tasks cancelled before they start never call the task itself, so the future has to be tracked
+				TrackedFutureTask<?> task = createFutureTask(arguments);
+				if (task != null) {
+					return execute(task, (Executor) invocation.getThis());
+				}
+			}
+			List<TrackedTask> trackedTasks = new ArrayList<>(1);
+			for (int i = 0; i < arguments.length; i++) {
+				if (arguments[i] instanceof Runnable runnable) {
+					TrackedRunnable trackedRunnable = new TrackedRunnable(runnable, trackedExecutor);
+					trackedTasks.add(trackedRunnable);
+					arguments[i] = trackedRunnable;
+				} else if (arguments[i] instanceof Callable<?> callable) {
+					TrackedCallable<?> trackedCallable = new TrackedCallable<>(callable, trackedExecutor);
+					trackedTasks.add(trackedCallable);
+					arguments[i] = trackedCallable;
+				}
+			}
+			try {
+				return invocation.proceed();
+			} catch (Throwable e) {
+				trackedTasks.forEach(TrackedTask::complete);
+				throw e;
+			}
+		}
+
+		private static Object shutdownNow(MethodInvocation invocation) throws Throwable {
+			Object drainedTasks = invocation.proceed();
+			if (drainedTasks instanceof List<?> tasks) {
+				tasks.forEach(ExecutorQuiescenceTracker::taskDiscarded);
+			}
+			return drainedTasks;
+		}
+
+		// invokeAll() and invokeAny() cancel the tasks that did not start yet before they return
+		private Object invokeTracked(MethodInvocation invocation) throws Throwable {
+			Object[] arguments = invocation.getArguments();
+			if (!(arguments[0] instanceof Collection<?> callables)) {
+				return invocation.proceed();
+			}
+			List<TrackedCallable<?>> trackedCallables = new ArrayList<>(callables.size());
+			for (Object callable : callables) {
+				trackedCallables.add(new TrackedCallable<>((Callable<?>) callable, trackedExecutor));
+			}
+			arguments[0] = trackedCallables;
+			try {
+				return invocation.proceed();
+			} finally {
+				trackedCallables.forEach(TrackedCallable::completeIfNotStarted);
+			}
+		}
+
+		private TrackedFutureTask<?> createFutureTask(Object[] arguments) {
+			if (arguments.length == 1 && arguments[0] instanceof Callable<?> callable) {
+				return new TrackedFutureTask<>(callable, trackedExecutor);
+			}
+			if (arguments.length <= 2 && arguments[0] instanceof Runnable runnable) {
+				return new TrackedFutureTask<>(runnable, arguments.length == 2 ? arguments[1] : null, trackedExecutor);
+			}
+			return null;
+		}
+
+		private static Future<?> execute(TrackedFutureTask<?> task, Executor executor) {
+			try {
+				executor.execute(task);
+			} catch (RuntimeException e) {
+				task.cancel(false);
+				throw e;
+			}
+			return task;
+		}
+	}
+
+	private static void taskDiscarded(Object task) {
+		if (task instanceof TrackedTask trackedTask) {
+			trackedTask.complete();
+		} else if (task instanceof TrackedFutureTask<?> trackedFutureTask) {
+			trackedFutureTask.complete();
+		}
+	}
+
+	private static final class TrackingRejectedExecutionHandler implements RejectedExecutionHandler {
+		private final RejectedExecutionHandler delegate;
+
+		TrackingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (delegate instanceof ThreadPoolExecutor.DiscardOldestPolicy) {
+				// same as the DiscardOldestPolicy, but with access to the discarded task
+				if (executor.isShutdown()) {
+					taskDiscarded(task);
+				} else {
+					taskDiscarded(executor.getQueue().poll());
+					executor.execute(task);
+				}
+				return;
+			}
+			delegate.rejectedExecution(task, executor);
+			if (delegate instanceof ThreadPoolExecutor.DiscardPolicy) {
+				taskDiscarded(task);
+			}
+		}
+	}
+
+	private static class TrackedTask {
+		private final TrackedExecutor trackedExecutor;
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		TrackedTask(TrackedExecutor trackedExecutor) {
+			this.trackedExecutor = trackedExecutor;
+			trackedExecutor.taskSubmitted();
+		}
+
+		void complete() {
+			if (completed.compareAndSet(false, true)) {
+				trackedExecutor.taskCompleted();
+			}
+		}
+	}
+
+	private static final class TrackedRunnable extends TrackedTask implements Runnable {
+		private final Runnable runnable;
+
+		TrackedRunnable(Runnable runnable, TrackedExecutor trackedExecutor) {
+			super(trackedExecutor);
+			this.runnable = runnable;
+		}
+
+		@Override
+		public void run() {
+			try {
+				runnable.run();
+			} finally {
+				complete();
+			}
+		}
+	}
+
+	private static final class TrackedCallable<V> extends TrackedTask implements Callable<V> {
+		private final Callable<V> callable;
+		private volatile boolean started;
+
+		TrackedCallable(Callable<V> callable, TrackedExecutor trackedExecutor) {
+			super(trackedExecutor);
+			this.callable = callable;
+		}
+
+		void completeIfNotStarted() {
+			if (!started) {
+				complete();
+			}
+		}
+
+		@Override
+		public V call() throws Exception {
+			started = true;
+			try {
+				return callable.call();
+			} finally {
+				complete();
+			}
+		}
+	}
+
+	private static final class TrackedFutureTask<V> extends FutureTask<V> {
+		private final TrackedTask trackedTask;
+
+		TrackedFutureTask(Callable<V> callable, TrackedExecutor trackedExecutor) {
+			super(callable);
+			this.trackedTask = new TrackedTask(trackedExecutor);
+		}
+
+		TrackedFutureTask(Runnable runnable, V result, TrackedExecutor trackedExecutor) {
+			super(runnable, result);
+			this.trackedTask = new TrackedTask(trackedExecutor);
+		}
+
+		void complete() {
+			trackedTask.complete();
+		}
+
+		@Override
+		protected void done() {
+			complete();
+		}
+	}
+}
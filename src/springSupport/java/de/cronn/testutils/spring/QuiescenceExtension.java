@@ -0,0 +1,53 @@
+package de.cronn.testutils.spring;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Waits until the executor beans tracked by {@link ExecutorQuiescenceTracker} have no tasks in flight.
+ * Register the tracker with {@code @Import(ExecutorQuiescenceTracker.class)}.
+ */
+public class QuiescenceExtension implements BeforeEachCallback, AfterEachCallback {
+
+	private Duration afterEachTimeout;
+	private ApplicationContext applicationContext;
+
+	/**
+	 * Waits for quiescence after each successful test, so that background work does not leak into the next test.
+	 */
+	public QuiescenceExtension withAwaitAfterEach(Duration timeout) {
+		this.afterEachTimeout = timeout;
+		return this;
+	}
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		applicationContext = SpringExtension.getApplicationContext(context);
+	}
+
+	@Override
+	public void afterEach(ExtensionContext context) throws InterruptedException {
+		if (afterEachTimeout != null && context.getExecutionException().isEmpty()) {
+			awaitQuiescence(afterEachTimeout);
+		}
+	}
+
+	/**
+	 * Returns as soon as all executor beans are idle.
+	 * Fails with the names of the executors that are still busy if the timeout elapses.
+	 */
+	public void awaitQuiescence(Duration timeout) throws InterruptedException {
+		ExecutorQuiescenceTracker tracker = applicationContext.getBeanProvider(ExecutorQuiescenceTracker.class).getIfAvailable();
+		if (tracker == null) {
+			throw new IllegalStateException("No " + ExecutorQuiescenceTracker.class.getSimpleName() + " bean found. "
+				+ "Register it with @Import(" + ExecutorQuiescenceTracker.class.getSimpleName() + ".class)");
+		}
+		tracker.awaitQuiescence(timeout);
+	}
+
+}
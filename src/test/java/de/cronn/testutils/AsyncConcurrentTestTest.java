@@ -0,0 +1,64 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AsyncConcurrentTestTest {
+
+	@Test
+	@Timeout(30)
+	void shouldAssertEachCompletion() throws ExecutionException, InterruptedException {
+		Set<Integer> results = new HashSet<>();
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		try {
+			ConcurrentTestReport report = AsyncConcurrentTest.create(index -> CompletableFuture.supplyAsync(() -> index, executorService))
+				.withConcurrencyLevel(100_000)
+				.withLatencyRecording()
+				.runAndAssertEachResult(results::add);
+
+			assertThat(results).hasSize(100_000);
+			assertThat(report.getTaskCount()).isEqualTo(100_000);
+			assertThat(report.getLatencies().orElseThrow().getTotalCount()).isEqualTo(100_000);
+		} finally {
+			ExecutorServiceUtils.shutdownOrThrow(executorService, "async", 1000);
+		}
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldLimitOperationsInFlight() throws ExecutionException, InterruptedException {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		AsyncConcurrentTest.create(index -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				return CompletableFuture.supplyAsync(() -> index, CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS));
+			})
+			.withConcurrencyLevel(200)
+			.withMaxInFlight(5)
+			.runAndAssertEachResult(result -> inFlight.decrementAndGet());
+
+		assertThat(maxInFlight.get()).isEqualTo(5);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldPropagateFailedCompletion() {
+		assertThatThrownBy(() -> AsyncConcurrentTest.create(index -> index == 3
+				? CompletableFuture.failedFuture(new IllegalStateException("failed " + index))
+				: CompletableFuture.completedFuture(index))
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(IllegalStateException.class);
+	}
+}
@@ -3,16 +3,27 @@ package de.cronn.testutils;
 import static org.assertj.core.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class ConcurrentTestTest {
 
@@ -34,6 +45,108 @@ class ConcurrentTestTest {
 		assertThat(atomicInteger.get()).isEqualTo(100);
 	}
 
+	@Test
+	@Timeout(30)
+	void shouldCollectResults() throws ExecutionException, InterruptedException {
+		Set<Integer> indices = ConcurrentTest.create(index -> index)
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(100)
+			.runAndCollect(Collectors.toSet());
+
+		assertThat(indices).hasSize(100).contains(0, 99);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldCollectResultsWithConcurrentCollector() throws ExecutionException, InterruptedException {
+		Map<Boolean, List<Integer>> indicesByParity = ConcurrentTest.create(index -> index)
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(100)
+			.runAndCollect(Collectors.groupingByConcurrent(index -> index % 2 == 0));
+
+		assertThat(indicesByParity.get(true)).hasSize(50);
+		assertThat(indicesByParity.get(false)).hasSize(50);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldCollectManyCallsOnFixedNumberOfWorkers() throws ExecutionException, InterruptedException {
+		Set<Thread> workerThreads = ConcurrentHashMap.newKeySet();
+		long sum = ConcurrentTest.create(index -> {
+				workerThreads.add(Thread.currentThread());
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(4)
+			.runAndCollect(1_000_000, Collectors.summingLong(Integer::longValue));
+
+		assertThat(sum).isEqualTo(999_999L * 1_000_000L / 2);
+		assertThat(workerThreads.size()).isLessThanOrEqualTo(4);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldStopCollectingOnFailureIfFailFast() {
+		AtomicInteger calls = new AtomicInteger();
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> {
+				calls.incrementAndGet();
+				if (index == 10) {
+					throw new IllegalStateException("expected failure");
+				}
+				Thread.sleep(1);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(2)
+			.withFailFast()
+			.runAndCollect(1_000, Collectors.toList()))
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseMessage("expected failure");
+
+		assertThat(calls.get()).isLessThan(1_000);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldDiscardWarmUpIterations() throws ExecutionException, InterruptedException {
+		Set<Integer> calledIndices = ConcurrentHashMap.newKeySet();
+		Set<Integer> assertedResults = ConcurrentHashMap.newKeySet();
+
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				calledIndices.add(index);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(10)
+			.withWarmUpIterations(3)
+			.withLatencyRecording()
+			.runAndAssertEachResult(assertedResults::add);
+
+		assertThat(calledIndices).hasSize(40).contains(-1, -30, 0, 9);
+		assertThat(assertedResults).hasSize(10).allMatch(index -> index >= 0);
+		assertThat(report.getLatencies().orElseThrow().getTotalCount()).isEqualTo(10);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldWarmUpUntilSteadyState() throws ExecutionException, InterruptedException {
+		AtomicInteger warmUpCalls = new AtomicInteger();
+
+		ConcurrentTest.create(index -> {
+				if (index < 0) {
+					warmUpCalls.incrementAndGet();
+				}
+				Thread.sleep(5);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(4)
+			.withWarmUpUntilSteadyState(0.5, 3, 100)
+			.runAndAssertEachResult(index -> assertThat(index).isNotNegative());
+
+		assertThat(warmUpCalls.get()).isBetween(12, 399);
+	}
+
 	@Test
 	@Timeout(30)
 	void shouldRunConcurrentThreads() throws ExecutionException, InterruptedException {
@@ -52,4 +165,372 @@ class ConcurrentTestTest {
 		assertThat(cyclicBarrier.isBroken()).isFalse();
 		assertThat(cyclicBarrier.getNumberWaiting()).isZero();
 	}
+
+	@Test
+	@Timeout(30)
+	void shouldRunOnVirtualThreads() throws ExecutionException, InterruptedException {
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		ConcurrentTest.create(index -> {
+				Thread thread = Thread.currentThread();
+				threadNames.add(thread.getName());
+				return thread.isVirtual();
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withVirtualThreads()
+			.withConcurrencyLevel(10_000)
+			.runAndAssertEachResult(result -> assertThat(result).isTrue());
+
+		assertThat(threadNames).hasSize(10_000);
+		assertThat(threadNames).allSatisfy(name -> assertThat(name).startsWith("ConcurrentTestTest"));
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldReleaseAllTasksAtOnceWithStartGate() throws ExecutionException, InterruptedException {
+		AtomicInteger startedTasks = new AtomicInteger();
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				startedTasks.incrementAndGet();
+				Thread.sleep(50);
+				return startedTasks.get();
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withStartGate()
+			.withConcurrencyLevel(20)
+			.runAndAssertEachResult(result -> assertThat(result).isEqualTo(20));
+
+		assertThat(report.getTaskCount()).isEqualTo(20);
+		assertThat(report.getStartSkew()).isLessThan(Duration.ofMillis(50));
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldRecordLatencies() throws ExecutionException, InterruptedException {
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				Thread.sleep(10);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withLatencyRecording()
+			.withConcurrencyLevel(20)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull());
+
+		assertThat(report.getLatencies()).isPresent();
+		assertThat(report.getLatencies().orElseThrow().getTotalCount()).isEqualTo(20);
+		assertThat(report.getLatencyAtPercentile(50)).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+		assertThat(report.getThroughput()).isPositive();
+		assertThat(report.toString()).contains("20 tasks", "p99:");
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldFailToReportLatenciesIfNotRecorded() throws ExecutionException, InterruptedException {
+		ConcurrentTestReport report = ConcurrentTest.create(index -> index)
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull());
+
+		assertThat(report.getLatencies()).isEmpty();
+		assertThatThrownBy(() -> report.getLatencyAtPercentile(99))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("Latencies were not recorded. Use ConcurrentTest.withLatencyRecording()");
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldRunAtFixedRate() throws ExecutionException, InterruptedException {
+		Set<Integer> indices = ConcurrentHashMap.newKeySet();
+		ConcurrentTestReport report = ConcurrentTest.create(index -> indices.add(index))
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.runAtFixedRateAndAssertEachResult(200, Duration.ofMillis(500), result -> assertThat(result).isTrue());
+
+		assertThat(report.getTaskCount()).isEqualTo(100);
+		assertThat(indices).hasSize(100);
+		assertThat(report.getTargetRate()).hasValue(200);
+		assertThat(report.getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(495));
+		assertThat(report.getLatencies().orElseThrow().getTotalCount()).isEqualTo(100);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldMeasureLatencyFromIntendedStartAtFixedRate() throws ExecutionException, InterruptedException {
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				Thread.sleep(20);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(1)
+			.runAtFixedRateAndAssertEachResult(100, Duration.ofMillis(200), result -> assertThat(result).isNotNull());
+
+		assertThat(report.getTaskCount()).isEqualTo(20);
+		assertThat(report.getLatencyAtPercentile(50)).isGreaterThan(Duration.ofMillis(50));
+		assertThat(report.getLatencyAtPercentile(100)).isGreaterThan(Duration.ofMillis(150));
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldCancelPendingTasksOnFirstFailureWithFailFast() {
+		AtomicInteger completedTasks = new AtomicInteger();
+		long startNanos = System.nanoTime();
+
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> {
+				if (index < 2) {
+					throw new IllegalStateException("Task " + index + " failed");
+				}
+				Thread.sleep(20_000);
+				return completedTasks.incrementAndGet();
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withStartGate()
+			.withFailFast()
+			.withConcurrencyLevel(10)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseInstanceOf(IllegalStateException.class)
+			.satisfies(e -> assertThat(e.getSuppressed()).hasSizeLessThanOrEqualTo(1));
+
+		assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(10));
+		assertThat(completedTasks.get()).isZero();
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldCancelPendingTasksOnFailedAssertionWithFailFast() {
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> {
+				if (index > 0) {
+					Thread.sleep(20_000);
+				}
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withFailFast()
+			.withConcurrencyLevel(10)
+			.runAndAssertEachResult(result -> assertThat(result).isNegative()))
+			.isInstanceOf(AssertionError.class);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldRunScalabilitySweep() throws ExecutionException, InterruptedException {
+		Set<Integer> indices = ConcurrentHashMap.newKeySet();
+		ScalabilityReport report = ConcurrentTest.create(index -> {
+				assertThat(indices.add(index)).isTrue();
+				Thread.sleep(2);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.runScalabilitySweep(ScalabilitySweep.upToConcurrencyLevel(6)
+				.withWarmUpRounds(1)
+				.withMeasuredRounds(2)
+				.withCallsPerWorker(5));
+
+		assertThat(report.getLevels())
+			.extracting(ScalabilityReport.Level::concurrencyLevel)
+			.containsExactly(1, 2, 4, 6);
+		assertThat(indices).hasSize((1 + 2 + 4 + 6) * 5 * 3);
+		assertThat(report.getLevels().get(0).speedup()).isEqualTo(1.0);
+		assertThat(report.getLevels().get(3).efficiency()).isGreaterThan(0.5);
+		assertThat(report.toMarkdownTable()).startsWith("| Concurrency | Throughput [calls/s] | Speedup | Efficiency |");
+	}
+
+	@Test
+	void shouldRejectInvalidScalabilitySweep() {
+		assertThatThrownBy(() -> ScalabilitySweep.upToConcurrencyLevel(4).withWarmUpRounds(-1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Warm-up rounds must not be negative: -1");
+		assertThatThrownBy(() -> ScalabilitySweep.upToConcurrencyLevel(4).withMeasuredRounds(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("At least one measured round is required: 0");
+		assertThat(ScalabilitySweep.upToConcurrencyLevel(4).withWarmUpRounds(0).getWarmUpRounds()).isEqualTo(0);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldMeasureCpuTimeAndAllocatedBytes() throws ExecutionException, InterruptedException {
+		ConcurrentTestReport report = ConcurrentTest.create(index -> new byte[10_000])
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withResourceAccounting()
+			.withConcurrencyLevel(10)
+			.runAndAssertEachResult(result -> assertThat(result).hasSize(10_000));
+
+		Histogram allocatedBytes = report.getAllocatedBytes().orElseThrow();
+		assertThat(allocatedBytes.getTotalCount()).isEqualTo(10);
+		assertThat(allocatedBytes.getMin()).isGreaterThanOrEqualTo(10_000L);
+		assertThat(allocatedBytes.getSum()).isGreaterThanOrEqualTo(100_000L);
+		assertThat(report.getCpuTimes().orElseThrow().getTotalCount()).isEqualTo(10);
+		assertThat(report.toString()).contains("allocated total:");
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldFailIfAllocationBudgetIsExceeded() {
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> new byte[10_000])
+			.withThreadNamePrefix("AllocationBudget")
+			.withAllocationBudgetPerCall(2048)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageStartingWith("A call of 'AllocationBudget' allocated ")
+			.hasMessageContaining("exceeding the budget of 2048 bytes per call");
+	}
+
+	@Test
+	void shouldRejectResourceAccountingOnVirtualThreads() {
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> index)
+			.withVirtualThreads()
+			.withResourceAccounting())
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("Resource accounting is not supported for virtual threads");
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> index)
+			.withCpuTimeBudgetPerCall(Duration.ofMillis(1))
+			.withVirtualThreads())
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("Resource accounting is not supported for virtual threads");
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldProfileLockContention() throws ExecutionException, InterruptedException {
+		Object monitor = new Object();
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				synchronized (monitor) {
+					Thread.sleep(20);
+				}
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withStartGate()
+			.withContentionProfiling(Duration.ofMillis(2))
+			.withConcurrencyLevel(5)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull());
+
+		ContentionReport contentionReport = report.getContentionReport().orElseThrow();
+		assertThat(contentionReport.getThreads()).hasSize(5);
+		assertThat(contentionReport.getTotalBlockedCount()).isGreaterThanOrEqualTo(4L);
+		assertThat(contentionReport.getSamples()).isPositive();
+		ContentionReport.ContendedLock mostContendedLock = contentionReport.getContendedLocks().get(0);
+		assertThat(mostContendedLock.lock()).startsWith("java.lang.Object@");
+		assertThat(mostContendedLock.samplesByOwner().keySet()).allSatisfy(owner -> assertThat(owner).startsWith("ConcurrentTestTest"));
+		assertThat(mostContendedLock.ownerStackTrace())
+			.anySatisfy(element -> assertThat(element.getClassName()).startsWith(ConcurrentTestTest.class.getName()));
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldNotReportContentionOfWarmUp() throws ExecutionException, InterruptedException {
+		Object monitor = new Object();
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				if (index < 0) {
+					synchronized (monitor) {
+						Thread.sleep(5);
+					}
+				}
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withWarmUpIterations(2)
+			.withContentionProfiling()
+			.withConcurrencyLevel(5)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull());
+
+		ContentionReport contentionReport = report.getContentionReport().orElseThrow();
+		assertThat(contentionReport.getThreads()).hasSize(5);
+		assertThat(contentionReport.getTotalBlockedCount()).isZero();
+		assertThat(contentionReport.getTotalBlockedTime()).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldRecordGcPauses() throws ExecutionException, InterruptedException {
+		ConcurrentTestReport report = ConcurrentTest.create(index -> {
+				if (index == 0) {
+					System.gc();
+				}
+				Thread.sleep(200);
+				return index;
+			})
+			.withThreadNamePrefixFromClass(ConcurrentTestTest.class)
+			.withConcurrencyLevel(4)
+			.withGcPauseRecording()
+			.runAndAssertEachResult(index -> assertThat(index).isNotNegative());
+
+		GcReport gcReport = report.getGcReport().orElseThrow();
+		assertThat(gcReport.getPauses()).extracting(GcReport.GcPause::cause).contains("System.gc()");
+		assertThat(gcReport.getTasksOverlappingPauses()).isPositive();
+		assertThat(gcReport.getLatenciesExcludingGc().getTotalCount()).isEqualTo(4 - gcReport.getTasksOverlappingPauses());
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldWriteFlightRecordingIfLatencyThresholdIsExceeded(@TempDir Path outputDirectory) throws Exception {
+		ConcurrentTest.create(index -> {
+				Thread.sleep(20);
+				return index;
+			})
+			.withThreadNamePrefix("ConcurrentTestTest-slow")
+			.withFlightRecording(Duration.ofMillis(1))
+			.withFlightRecordingOutputDirectory(outputDirectory)
+			.runAndAssertEachResult(index -> assertThat(index).isNotNegative());
+
+		assertThat(findFlightRecordings(outputDirectory, "ConcurrentTestTest-slow")).singleElement().satisfies(file -> assertThat(file).isNotEmptyFile());
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldWriteFlightRecordingOfEveryFailedRun(@TempDir Path outputDirectory) throws Exception {
+		for (int run = 0; run < 2; run++) {
+			assertThatThrownBy(() -> ConcurrentTest.create(index -> index)
+				.withThreadNamePrefix("ConcurrentTestTest-failing")
+				.withFlightRecording()
+				.withFlightRecordingOutputDirectory(outputDirectory)
+				.runAndAssertEachResult(index -> assertThat(index).isNegative()))
+				.isInstanceOf(AssertionError.class);
+		}
+
+		assertThat(findFlightRecordings(outputDirectory, "ConcurrentTestTest-failing")).hasSize(2);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldWriteFlightRecordingIfResourceBudgetIsExceeded(@TempDir Path outputDirectory) throws Exception {
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> new byte[10_000])
+			.withAllocationBudgetPerCall(2048)
+			.withFlightRecording()
+			.withFlightRecordingOutputDirectory(outputDirectory)
+			.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(AssertionError.class)
+			.hasMessageContaining("exceeding the budget of 2048 bytes per call");
+
+		assertThat(findFlightRecordings(outputDirectory, "ConcurrentTest")).singleElement().satisfies(file -> assertThat(file).isNotEmptyFile());
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldNameFlightRecordingAfterTest(@TempDir Path outputDirectory, TestInfo testInfo) throws Exception {
+		assertThatThrownBy(() -> ConcurrentTest.create(index -> index)
+			.withFlightRecording()
+			.withFlightRecordingNameFromTest(testInfo)
+			.withFlightRecordingOutputDirectory(outputDirectory)
+			.runAndAssertEachResult(index -> assertThat(index).isNegative()))
+			.isInstanceOf(AssertionError.class);
+
+		assertThat(findFlightRecordings(outputDirectory, "ConcurrentTestTest_shouldNameFlightRecordingAfterTest")).hasSize(1);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldDiscardFlightRecordingOnSuccess(@TempDir Path outputDirectory) throws Exception {
+		ConcurrentTest.create(index -> index)
+			.withThreadNamePrefix("ConcurrentTestTest-fast")
+			.withFlightRecording(Duration.ofSeconds(10))
+			.withFlightRecordingOutputDirectory(outputDirectory)
+			.runAndAssertEachResult(index -> assertThat(index).isNotNegative());
+
+		assertThat(findFlightRecordings(outputDirectory, "ConcurrentTestTest-fast")).isEmpty();
+	}
+
+	private static List<Path> findFlightRecordings(Path directory, String name) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith(name + "_"))
+				.filter(file -> file.getFileName().toString().endsWith(".jfr"))
+				.toList();
+		}
+	}
 }
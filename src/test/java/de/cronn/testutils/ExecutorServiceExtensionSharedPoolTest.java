@@ -0,0 +1,144 @@
+package de.cronn.testutils;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutorServiceExtensionSharedPoolTest {
+
+    private static final Set<Thread> POOL_THREADS = ConcurrentHashMap.newKeySet();
+    private static final Set<Executor> SHARED_POOLS = ConcurrentHashMap.newKeySet();
+
+    @RegisterExtension
+    ExecutorServiceExtension executorServiceExtension = new ExecutorServiceExtension(Duration.ofSeconds(10)).withClassScopedPool();
+
+    @Test
+    void testFirstTestReusesPool() throws Exception {
+        Future<String> threadName = executorServiceExtension.submit(() -> {
+            POOL_THREADS.add(Thread.currentThread());
+            return Thread.currentThread().getName();
+        });
+
+        assertThat(threadName.get()).isEqualTo("ExecutorServiceExtensionSharedPoolTest_testFirstTestReusesPool-1");
+        assertThat(POOL_THREADS).allMatch(Thread::isAlive);
+        assertSingleSharedPool(executorServiceExtension);
+    }
+
+    @Test
+    void testSecondTestReusesPool() throws Exception {
+        Future<String> threadName = executorServiceExtension.submit(() -> {
+            POOL_THREADS.add(Thread.currentThread());
+            return Thread.currentThread().getName();
+        });
+
+        assertThat(threadName.get()).isEqualTo("ExecutorServiceExtensionSharedPoolTest_testSecondTestReusesPool-1");
+        assertThat(POOL_THREADS).allMatch(Thread::isAlive);
+    }
+
+    @Test
+    void testConcurrentTestOnSharedPool() throws Exception {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        ConcurrentTest.create(index -> Thread.currentThread().getName())
+            .withConcurrencyLevel(3)
+            .withStartGate()
+            .withExecutorService(executorServiceExtension.getExecutorService())
+            .runAndAssertEachResult(threadNames::add);
+
+        assertThat(threadNames).containsExactlyInAnyOrder("ConcurrentTest1", "ConcurrentTest2", "ConcurrentTest3");
+        assertThat(executorServiceExtension.getExecutorService().isShutdown()).isFalse();
+    }
+
+    @Test
+    void testShutdownNowInterruptsOnlyOwnTasks() throws Exception {
+        ExecutorService sharedPool = executorServiceExtension.getExecutorService();
+        LeasedExecutorService lease = new LeasedExecutorService(sharedPool, "lease", "lease-");
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> blocked = lease.submit(() -> {
+            started.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        lease.shutdownNow();
+
+        assertThat(lease.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(blocked.isDone()).isTrue();
+        assertThatThrownBy(() -> lease.submit(() -> "rejected")).isInstanceOf(RejectedExecutionException.class);
+        assertThat(executorServiceExtension.submit(() -> "still running").get()).isEqualTo("still running");
+    }
+
+    @Test
+    void testShutdownNowCancelsQueuedTasks() throws Exception {
+        ExecutorService singleThreadPool = Executors.newSingleThreadExecutor();
+        try {
+            LeasedExecutorService lease = new LeasedExecutorService(singleThreadPool, "lease", "lease-");
+            CountDownLatch started = new CountDownLatch(1);
+            lease.submit(() -> {
+                started.countDown();
+                new CountDownLatch(1).await();
+                return null;
+            });
+            Future<String> queued = lease.submit(() -> "never runs");
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Runnable> pendingTasks = lease.shutdownNow();
+
+            assertThat(pendingTasks).containsExactly((Runnable) queued);
+            assertThatThrownBy(() -> queued.get(10, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+            assertThat(lease.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            ExecutorServiceUtils.shutdownOrThrow(singleThreadPool, "lease", Duration.ofSeconds(10));
+        }
+    }
+
+    @Test
+    void testThreadsAreNumberedPerLease() throws Exception {
+        ExecutorService singleThreadPool = Executors.newSingleThreadExecutor();
+        try {
+            LeasedExecutorService lease = new LeasedExecutorService(singleThreadPool, "lease", "lease-");
+            Future<String> first = lease.submit(() -> Thread.currentThread().getName());
+            Future<String> second = lease.submit(() -> Thread.currentThread().getName());
+
+            assertThat(first.get()).isEqualTo("lease-1");
+            assertThat(second.get()).isEqualTo("lease-1");
+            lease.shutdown();
+            assertThat(lease.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            ExecutorServiceUtils.shutdownOrThrow(singleThreadPool, "lease", Duration.ofSeconds(10));
+        }
+    }
+
+    @Nested
+    class NestedTests {
+
+        @Test
+        void testNestedClassReusesPoolOfTopLevelClass() throws Exception {
+            Future<String> threadName = executorServiceExtension.submit(() -> Thread.currentThread().getName());
+
+            assertThat(threadName.get()).isEqualTo("ExecutorServiceExtensionSharedPoolTest_NestedTests_testNestedClassReusesPoolOfTopLevelClass-1");
+            assertSingleSharedPool(executorServiceExtension);
+        }
+    }
+
+    private static void assertSingleSharedPool(ExecutorServiceExtension executorServiceExtension) {
+        SHARED_POOLS.add(((LeasedExecutorService) executorServiceExtension.getExecutorService()).getExecutor());
+        assertThat(SHARED_POOLS).hasSize(1);
+    }
+}
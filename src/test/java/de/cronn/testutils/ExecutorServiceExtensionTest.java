@@ -1,14 +1,22 @@
 package de.cronn.testutils;
 
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @ExtendWith(ThreadLeakCheck.class)
 class ExecutorServiceExtensionTest {
@@ -32,4 +40,158 @@ class ExecutorServiceExtensionTest {
                 .containsExactlyInAnyOrder("one", "two", "three");
     }
 
+    @Test
+    void testAwaitAllFuturesInCompletionOrderFailsFast() {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        Future<Void> hangingFuture = executorServiceExtension.submit(() -> {
+            neverReleased.await();
+            return null;
+        });
+        executorServiceExtension.submit(() -> {
+            throw new IllegalStateException("expected failure");
+        });
+
+        assertThatThrownBy(() -> executorServiceExtension.awaitAllFutures(Duration.ofSeconds(10)))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("expected failure");
+        assertThat(hangingFuture.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testAwaitAllFuturesWithTimeout() throws Exception {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        Future<?> completedFuture = executorServiceExtension.submit(() -> "done");
+        Future<Void> hangingFuture = executorServiceExtension.submit(() -> {
+            neverReleased.await();
+            return null;
+        });
+
+        assertThatThrownBy(() -> executorServiceExtension.awaitAllFutures(Duration.ofMillis(100)))
+                .isInstanceOf(TimeoutException.class)
+                .hasMessage("1 of 2 futures did not complete within 100 ms");
+        assertThat(completedFuture.get()).isEqualTo("done");
+        assertThat(hangingFuture.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testReportWithoutSubmittedTasks() {
+        ExecutorServiceReport report = executorServiceExtension.getReport();
+
+        assertThat(report.getTaskCount()).isEqualTo(0);
+        assertThat(report.getPeakInFlightTasks()).isEqualTo(0);
+        assertThat(report.getRunTimes().getTotalCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testRejectsVirtualThreadsWithMaxPoolSize() {
+        assertThatThrownBy(() -> new ExecutorServiceExtension(Duration.ofSeconds(10)).withVirtualThreads().withMaxPoolSize(2))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("A max pool size is not supported with virtual threads");
+        assertThatThrownBy(() -> new ExecutorServiceExtension(Duration.ofSeconds(10)).withMaxPoolSize(2).withVirtualThreads())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("A max pool size is not supported with virtual threads");
+    }
+
+    @Test
+    void testRejectsVirtualThreadsWithThreadFactory() {
+        assertThatThrownBy(() -> new ExecutorServiceExtension(Duration.ofSeconds(10)).withVirtualThreads().withThreadFactory(Thread::new))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("A thread factory is not supported with virtual threads");
+        assertThatThrownBy(() -> new ExecutorServiceExtension(Duration.ofSeconds(10)).withThreadFactory(Thread::new).withVirtualThreads())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("A thread factory is not supported with virtual threads");
+    }
+
+    @Nested
+    class VirtualThreads {
+
+        @RegisterExtension
+        ExecutorServiceExtension executorServiceExtension = new ExecutorServiceExtension(Duration.ofSeconds(10)).withVirtualThreads();
+
+        @Test
+        void testTasksRunOnNamedVirtualThreads() throws Exception {
+            Future<Thread> thread = executorServiceExtension.submit(Thread::currentThread);
+
+            assertThat(thread.get().isVirtual()).isTrue();
+            assertThat(thread.get().getName()).isEqualTo("ExecutorServiceExtensionTest_VirtualThreads_testTasksRunOnNamedVirtualThreads-1");
+        }
+    }
+
+    @Nested
+    class BoundedPoolWithCustomThreadFactory {
+
+        @RegisterExtension
+        ExecutorServiceExtension executorServiceExtension = new ExecutorServiceExtension(Duration.ofSeconds(10))
+                .withMaxPoolSize(2)
+                .withThreadFactory(runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        @Test
+        void testPoolSizeIsBounded() throws Exception {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            for (int i = 0; i < 5; i++) {
+                executorServiceExtension.submit(() -> {
+                    threads.add(Thread.currentThread());
+                    started.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                });
+            }
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+            executorServiceExtension.awaitAllFutures();
+
+            assertThat(threads).hasSize(2);
+            assertThat(threads).allMatch(Thread::isDaemon);
+            ExecutorServiceReport report = executorServiceExtension.getReport();
+            assertThat(report.getTaskCount()).isEqualTo(5);
+            assertThat(report.getPeakInFlightTasks()).isEqualTo(5);
+            assertThat(report.getPeakThreadCount()).isEqualTo(2);
+            assertThat(report.getQueueWaitTimes().getTotalCount()).isEqualTo(5);
+            assertThat(threads)
+                    .map(Thread::getName)
+                    .containsExactlyInAnyOrder("ExecutorServiceExtensionTest_BoundedPoolWithCustomThreadFactory_testPoolSizeIsBounded-1",
+                            "ExecutorServiceExtensionTest_BoundedPoolWithCustomThreadFactory_testPoolSizeIsBounded-2");
+        }
+    }
+
+    @Nested
+    class SuccessfulFuturePruning {
+
+        @RegisterExtension
+        ExecutorServiceExtension executorServiceExtension = new ExecutorServiceExtension(Duration.ofSeconds(10)).withSuccessfulFuturePruning();
+
+        @Test
+        void testFanOutFromWorkerTasks() throws Exception {
+            for (int i = 0; i < 100; i++) {
+                executorServiceExtension.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        executorServiceExtension.submit(() -> "subtask");
+                    }
+                });
+            }
+
+            executorServiceExtension.awaitAllFutures(Duration.ofSeconds(10));
+
+            assertThat(executorServiceExtension.getFutures()).isEmpty();
+            assertThat(executorServiceExtension.getReport().getTaskCount()).isEqualTo(1_100);
+        }
+
+        @Test
+        void testFailedFuturesAreKept() throws Exception {
+            Future<String> succeededFuture = executorServiceExtension.submit(() -> "success");
+            assertThat(succeededFuture.get()).isEqualTo("success");
+            Future<Void> failedFuture = executorServiceExtension.submit(() -> {
+                throw new IllegalStateException("expected failure");
+            });
+
+            assertThatThrownBy(() -> executorServiceExtension.awaitAllFutures(Duration.ofSeconds(10)))
+                    .isInstanceOf(ExecutionException.class);
+            assertThat(executorServiceExtension.getFutures()).containsExactly(failedFuture);
+        }
+    }
 }
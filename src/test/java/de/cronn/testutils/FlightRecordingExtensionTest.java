@@ -0,0 +1,84 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightRecordingExtensionTest {
+
+	static final String FLAG = "FlightRecordingExtensionTestTestFlag";
+	static final String FLAG_ENABLED_VALUE = "true";
+
+	static Path outputDirectory;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void enableTestCaseTestClasses() {
+		System.setProperty(FLAG, FLAG_ENABLED_VALUE);
+		outputDirectory = tempDir;
+	}
+
+	@AfterEach
+	void disableTestCaseTestClasses() {
+		System.clearProperty(FLAG);
+	}
+
+	@Test
+	void shouldWriteRecordingOfFailedAndSlowTests() throws Exception {
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(FlightRecordedTest.class);
+
+		assertThat(exceptions).extracting(Throwable::getMessage).containsExactlyInAnyOrder("failing", "failing repeatedly", "failing repeatedly");
+		assertThat(findRecordings("FlightRecordedTest_failingTest_")).singleElement().satisfies(file -> assertThat(file).isNotEmptyFile());
+		assertThat(findRecordings("FlightRecordedTest_slowTest_")).singleElement().satisfies(file -> assertThat(file).isNotEmptyFile());
+		assertThat(findRecordings("FlightRecordedTest_fastTest_")).isEmpty();
+		assertThat(findRecordings("FlightRecordedTest_repeatedlyFailingTest_repetition_1_of_2_")).hasSize(1);
+		assertThat(findRecordings("FlightRecordedTest_repeatedlyFailingTest_repetition_2_of_2_")).hasSize(1);
+	}
+
+	private List<Path> findRecordings(String prefix) throws IOException {
+		try (Stream<Path> files = Files.list(tempDir)) {
+			return files.filter(file -> file.getFileName().toString().startsWith(prefix)).toList();
+		}
+	}
+}
+
+@org.junit.jupiter.api.condition.EnabledIfSystemProperty(named = FlightRecordingExtensionTest.FLAG, matches = FlightRecordingExtensionTest.FLAG_ENABLED_VALUE)
+class FlightRecordedTest {
+
+	@org.junit.jupiter.api.extension.RegisterExtension
+	FlightRecordingExtension flightRecording = new FlightRecordingExtension()
+		.withConfiguration("default")
+		.withOutputDirectory(FlightRecordingExtensionTest.outputDirectory)
+		.withDurationThreshold(Duration.ofMillis(500));
+
+	@Test
+	void failingTest() {
+		throw new IllegalStateException("failing");
+	}
+
+	@Test
+	void slowTest() throws InterruptedException {
+		Thread.sleep(1000);
+	}
+
+	@Test
+	void fastTest() {
+	}
+
+	@org.junit.jupiter.api.RepeatedTest(2)
+	void repeatedlyFailingTest() {
+		throw new IllegalStateException("failing repeatedly");
+	}
+}
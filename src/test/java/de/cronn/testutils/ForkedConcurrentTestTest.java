@@ -0,0 +1,99 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+class ForkedConcurrentTestTest {
+
+	@Test
+	@Timeout(60)
+	void shouldRunTasksInForkedJvms() throws ExecutionException, InterruptedException {
+		Set<String> results = new HashSet<>();
+
+		ConcurrentTestReport report = ForkedConcurrentTest.create(ProcessIdTask.class)
+			.withThreadNamePrefixFromClass(ForkedConcurrentTestTest.class)
+			.withProcesses(2)
+			.withTasksPerProcess(3)
+			.runAndAssertEachResult(results::add);
+
+		assertThat(results).hasSize(6);
+		Set<String> processIds = results.stream().map(result -> result.split(":")[0]).collect(Collectors.toSet());
+		assertThat(processIds).hasSize(2).doesNotContain(String.valueOf(ProcessHandle.current().pid()));
+		assertThat(report.getTaskCount()).isEqualTo(6);
+		assertThat(report.getLatencies().orElseThrow().getTotalCount()).isEqualTo(6);
+	}
+
+	@Test
+	@Timeout(60)
+	void shouldPropagateFailureOfForkedTask() {
+		ForkedConcurrentTest<String> forkedConcurrentTest = ForkedConcurrentTest.create(FailingTask.class)
+			.withThreadNamePrefixFromClass(ForkedConcurrentTestTest.class);
+
+		assertThatThrownBy(() -> forkedConcurrentTest.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseMessage("failed in forked JVM");
+	}
+
+	@Test
+	@Timeout(60)
+	void shouldFailFastIfTaskCannotBeCreatedInForkedJvm() {
+		ForkedConcurrentTest<String> forkedConcurrentTest = ForkedConcurrentTest.create(TaskWithoutNoArgConstructor.class)
+			.withThreadNamePrefixFromClass(ForkedConcurrentTestTest.class);
+
+		long startNanos = System.nanoTime();
+		assertThatThrownBy(() -> forkedConcurrentTest.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(ExecutionException.class)
+			.hasMessageContaining("failed to create the task")
+			.hasRootCauseInstanceOf(NoSuchMethodException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(20));
+	}
+
+	@Test
+	@Timeout(60)
+	void shouldFailFastIfForkedJvmDoesNotStart() {
+		ForkedConcurrentTest<String> forkedConcurrentTest = ForkedConcurrentTest.create(ProcessIdTask.class)
+			.withThreadNamePrefixFromClass(ForkedConcurrentTestTest.class)
+			.withJvmArguments("-XX:+NoSuchJvmOption");
+
+		long startNanos = System.nanoTime();
+		assertThatThrownBy(() -> forkedConcurrentTest.runAndAssertEachResult(result -> assertThat(result).isNotNull()))
+			.isInstanceOf(ExecutionException.class)
+			.hasMessageContaining("before it was ready");
+		assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(20));
+	}
+
+	public static class ProcessIdTask implements ConcurrentTest.IndexedCallable<String> {
+		@Override
+		public String call(int index) {
+			return ProcessHandle.current().pid() + ":" + index;
+		}
+	}
+
+	public static class FailingTask implements ConcurrentTest.IndexedCallable<String> {
+		@Override
+		public String call(int index) {
+			throw new IllegalStateException("failed in forked JVM");
+		}
+	}
+
+	public static class TaskWithoutNoArgConstructor implements ConcurrentTest.IndexedCallable<String> {
+		private final String value;
+
+		public TaskWithoutNoArgConstructor(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public String call(int index) {
+			return value;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GcPauseRecorderTest {
+
+	private static final long MAX_ERROR_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	@Test
+	void shouldPositionPausesWithinErrorBound() {
+		GcPauseRecorder gcPauseRecorder = new GcPauseRecorder();
+		gcPauseRecorder.start();
+		long startNanos = System.nanoTime();
+		long gcStartNanos = System.nanoTime();
+		System.gc();
+		long gcEndNanos = System.nanoTime();
+		gcPauseRecorder.recordTask(gcStartNanos, gcEndNanos);
+		gcPauseRecorder.recordTask(gcStartNanos - MAX_ERROR_NANOS - TimeUnit.MILLISECONDS.toNanos(5), gcStartNanos - MAX_ERROR_NANOS);
+		gcPauseRecorder.recordTask(gcEndNanos + MAX_ERROR_NANOS, gcEndNanos + MAX_ERROR_NANOS + TimeUnit.MILLISECONDS.toNanos(5));
+		// stopped right away, without waiting for the notification of the pause
+		GcReport gcReport = gcPauseRecorder.stop();
+
+		assertThat(gcPauseRecorder.getPausePositionErrorNanos()).isLessThan(MAX_ERROR_NANOS);
+		GcReport.GcPause pause = gcReport.getPauses().stream()
+			.filter(gcPause -> gcPause.cause().equals("System.gc()"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(startNanos + pause.offset().toNanos()).isBetween(gcStartNanos - gcPauseRecorder.getPausePositionErrorNanos(), gcEndNanos);
+		assertThat(gcReport.getTasksOverlappingPauses()).isEqualTo(1);
+		assertThat(gcReport.getLatenciesExcludingGc().getTotalCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldClassifyMoreTasksThanFitIntoTheBuffer() {
+		GcPauseRecorder gcPauseRecorder = new GcPauseRecorder();
+		gcPauseRecorder.start();
+		for (int task = 0; task < 100_000; task++) {
+			long nanos = System.nanoTime();
+			gcPauseRecorder.recordTask(nanos, nanos + 1_000);
+		}
+		GcReport gcReport = gcPauseRecorder.stop();
+
+		assertThat(gcReport.getTasksOverlappingPauses() + gcReport.getLatenciesExcludingGc().getTotalCount()).isEqualTo(100_000);
+	}
+}
@@ -0,0 +1,64 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+	@Test
+	void shouldReportExactValuesBelowSubBucketCount() {
+		Histogram histogram = new Histogram();
+		for (int value = 1; value <= 100; value++) {
+			histogram.recordValue(value);
+		}
+
+		assertThat(histogram.getTotalCount()).isEqualTo(100);
+		assertThat(histogram.getMin()).isEqualTo(1);
+		assertThat(histogram.getMax()).isEqualTo(100);
+		assertThat(histogram.getMean()).isEqualTo(50.5);
+		assertThat(histogram.getValueAtPercentile(50)).isEqualTo(50);
+		assertThat(histogram.getValueAtPercentile(99)).isEqualTo(99);
+		assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100);
+	}
+
+	@Test
+	void shouldReportLargeValuesWithBoundedRelativeError() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 10_000; value++) {
+			histogram.recordValue(value * 1_000_000L);
+		}
+
+		assertThat(histogram.getValueAtPercentile(50)).isBetween(5_000_000_000L, 5_000_000_000L + 5_000_000_000L / 64);
+		assertThat(histogram.getValueAtPercentile(99.9)).isBetween(9_990_000_000L, 9_990_000_000L + 9_990_000_000L / 64);
+		assertThat(histogram.getMax()).isEqualTo(10_000_000_000L);
+	}
+
+	@Test
+	void shouldMapEveryValueIntoItsBucket() {
+		for (long value : new long[] { 0, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE }) {
+			int index = Histogram.countsIndex(value);
+			assertThat(Histogram.lowestEquivalentValue(index)).isLessThanOrEqualTo(value);
+			assertThat(Histogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+		}
+	}
+
+	@Test
+	void shouldHandleEmptyHistogram() {
+		Histogram histogram = new Histogram();
+
+		assertThat(histogram.getTotalCount()).isZero();
+		assertThat(histogram.getMin()).isZero();
+		assertThat(histogram.getMax()).isZero();
+		assertThat(histogram.getValueAtPercentile(99)).isZero();
+	}
+
+	@Test
+	void shouldRejectInvalidPercentile() {
+		Histogram histogram = new Histogram();
+
+		assertThatThrownBy(() -> histogram.getValueAtPercentile(100.1))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Percentile must be between 0 and 100: 100.1");
+	}
+}
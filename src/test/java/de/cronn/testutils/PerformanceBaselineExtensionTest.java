@@ -0,0 +1,177 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PerformanceBaselineExtensionTest {
+
+	static final String FLAG = "PerformanceBaselineExtensionTestTestFlag";
+	static final String FLAG_ENABLED_VALUE = "true";
+
+	static Path validationDirectory;
+	static Path outputDirectory;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void enableTestCaseTestClasses() {
+		System.setProperty(FLAG, FLAG_ENABLED_VALUE);
+		validationDirectory = tempDir.resolve("validation");
+		outputDirectory = tempDir.resolve("output");
+	}
+
+	@AfterEach
+	void disableTestCaseTestClasses() {
+		System.clearProperty(FLAG);
+	}
+
+	@Test
+	void shouldCreateMissingBaselineAndFail() throws Exception {
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(StableThroughputTest.class);
+
+		Path baselineFile = validationDirectory.resolve("StableThroughputTest_recordThroughput.perf.txt");
+		assertThat(exceptions)
+			.singleElement()
+			.satisfies(e -> assertThat(e).hasMessage("Performance baseline " + baselineFile + " did not exist and was created from the current run"));
+		assertThat(Files.readAllLines(baselineFile))
+			.containsExactly("# metric direction samples mean standard-deviation", "throughput higher 3 100.0 1.0");
+		assertThat(outputDirectory.resolve("StableThroughputTest_recordThroughput.perf.txt")).hasSameTextualContentAs(baselineFile);
+	}
+
+	@Test
+	void shouldPassWithinTolerance() throws Exception {
+		writeBaseline("throughput higher 5 105.0 3.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(StableThroughputTest.class);
+
+		assertThat(exceptions).isEmpty();
+	}
+
+	@Test
+	void shouldFailOnSignificantRegression() throws Exception {
+		writeBaseline("throughput higher 5 150.0 3.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(StableThroughputTest.class);
+
+		assertThat(exceptions)
+			.singleElement()
+			.satisfies(e -> assertThat(e).hasMessageContaining("throughput: 100.0 (sd 1.0, n=3) is worse than baseline 150.0 (sd 3.0, n=5) by more than 10%"));
+	}
+
+	@Test
+	void shouldNotFailOnRegressionWithinNoise() throws Exception {
+		writeBaseline("throughput higher 2 150.0 80.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(StableThroughputTest.class);
+
+		assertThat(exceptions).isEmpty();
+	}
+
+	@Test
+	void shouldRejectSingleSampleForTTest() throws Exception {
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(SingleSampleTest.class);
+
+		assertThat(exceptions)
+			.singleElement()
+			.satisfies(e -> assertThat(e)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageStartingWith("Metric 'throughput' has 1 sample in the test, but the t-test needs at least 2."));
+		assertThat(validationDirectory.resolve("SingleSampleTest_recordThroughput.perf.txt")).doesNotExist();
+	}
+
+	@Test
+	void shouldRejectBaselineWithSingleSample() throws Exception {
+		writeBaseline("throughput higher 1 100.0 0.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(StableThroughputTest.class);
+
+		assertThat(exceptions)
+			.singleElement()
+			.satisfies(e -> assertThat(e)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageStartingWith("Metric 'throughput' has 1 sample in the baseline "));
+	}
+
+	@Test
+	void shouldPassSingleSampleWithinToleranceIfThresholdOnly() throws Exception {
+		writeBaseline("SingleSampleThresholdOnlyTest_recordThroughput.perf.txt", "throughput higher 1 105.0 0.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(SingleSampleThresholdOnlyTest.class);
+
+		assertThat(exceptions).isEmpty();
+	}
+
+	@Test
+	void shouldFailSingleSampleBeyondToleranceIfThresholdOnly() throws Exception {
+		writeBaseline("SingleSampleThresholdOnlyTest_recordThroughput.perf.txt", "throughput higher 1 120.0 0.0");
+
+		List<Throwable> exceptions = JUnitTestExecutor.runTestClassAndReturnExceptionsThrown(SingleSampleThresholdOnlyTest.class);
+
+		assertThat(exceptions)
+			.singleElement()
+			.satisfies(e -> assertThat(e).hasMessageContaining("throughput: 100.0 (sd 0.0, n=1) is worse than baseline 120.0 (sd 0.0, n=1) by more than 10%"));
+	}
+
+	private static void writeBaseline(String line) throws Exception {
+		writeBaseline("StableThroughputTest_recordThroughput.perf.txt", line);
+	}
+
+	private static void writeBaseline(String fileName, String line) throws Exception {
+		Files.createDirectories(validationDirectory);
+		Files.write(validationDirectory.resolve(fileName), List.of(line));
+	}
+}
+
+@org.junit.jupiter.api.condition.EnabledIfSystemProperty(named = PerformanceBaselineExtensionTest.FLAG, matches = PerformanceBaselineExtensionTest.FLAG_ENABLED_VALUE)
+class StableThroughputTest {
+
+	@org.junit.jupiter.api.extension.RegisterExtension
+	PerformanceBaselineExtension performanceBaseline = new PerformanceBaselineExtension()
+		.withBaselineDirectory(PerformanceBaselineExtensionTest.validationDirectory)
+		.withOutputDirectory(PerformanceBaselineExtensionTest.outputDirectory);
+
+	@Test
+	void recordThroughput() {
+		performanceBaseline.recordHigherIsBetter("throughput", 99);
+		performanceBaseline.recordHigherIsBetter("throughput", 100);
+		performanceBaseline.recordHigherIsBetter("throughput", 101);
+	}
+}
+
+@org.junit.jupiter.api.condition.EnabledIfSystemProperty(named = PerformanceBaselineExtensionTest.FLAG, matches = PerformanceBaselineExtensionTest.FLAG_ENABLED_VALUE)
+class SingleSampleTest {
+
+	@org.junit.jupiter.api.extension.RegisterExtension
+	PerformanceBaselineExtension performanceBaseline = new PerformanceBaselineExtension()
+		.withBaselineDirectory(PerformanceBaselineExtensionTest.validationDirectory)
+		.withOutputDirectory(PerformanceBaselineExtensionTest.outputDirectory);
+
+	@Test
+	void recordThroughput() {
+		performanceBaseline.recordHigherIsBetter("throughput", 100);
+	}
+}
+
+@org.junit.jupiter.api.condition.EnabledIfSystemProperty(named = PerformanceBaselineExtensionTest.FLAG, matches = PerformanceBaselineExtensionTest.FLAG_ENABLED_VALUE)
+class SingleSampleThresholdOnlyTest {
+
+	@org.junit.jupiter.api.extension.RegisterExtension
+	PerformanceBaselineExtension performanceBaseline = new PerformanceBaselineExtension()
+		.withThresholdOnly()
+		.withBaselineDirectory(PerformanceBaselineExtensionTest.validationDirectory)
+		.withOutputDirectory(PerformanceBaselineExtensionTest.outputDirectory);
+
+	@Test
+	void recordThroughput() {
+		performanceBaseline.recordHigherIsBetter("throughput", 100);
+	}
+}
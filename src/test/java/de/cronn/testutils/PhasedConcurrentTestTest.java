@@ -0,0 +1,87 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class PhasedConcurrentTestTest {
+
+	@Test
+	@Timeout(30)
+	void shouldRunPhasesOneAfterAnother() throws ExecutionException, InterruptedException {
+		Map<Integer, String> values = new ConcurrentHashMap<>();
+
+		PhasedConcurrentTestReport report = PhasedConcurrentTest.create()
+			.withThreadNamePrefixFromClass(PhasedConcurrentTestTest.class)
+			.withConcurrencyLevel(20)
+			.withPhase("load", index -> values.put(index, "loaded"))
+			.withPhase("update", index -> {
+				assertThat(values).hasSize(20);
+				return values.put(index, "updated");
+			})
+			.withPhase("read", index -> {
+				assertThat(values.values()).containsOnly("updated");
+				return values.get(index);
+			})
+			.run();
+
+		assertThat(report.getPhaseNames()).containsExactly("load", "update", "read");
+		assertThat(report.getPhase("update").getTaskCount()).isEqualTo(20);
+		assertThat(report.getPhase("read").getLatencies().orElseThrow().getTotalCount()).isEqualTo(20);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldFailIfStepFails() {
+		PhasedConcurrentTest phasedConcurrentTest = PhasedConcurrentTest.create()
+			.withThreadNamePrefixFromClass(PhasedConcurrentTestTest.class)
+			.withPhase("first", index -> index)
+			.withPhase("second", index -> {
+				if (index == 3) {
+					throw new IllegalStateException("step failed");
+				}
+				return index;
+			})
+			.withPhase("third", index -> index);
+
+		assertThatThrownBy(phasedConcurrentTest::run)
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseMessage("step failed");
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldNotStartNextPhaseAfterStepFailed() {
+		AtomicBoolean secondPhaseStarted = new AtomicBoolean();
+		PhasedConcurrentTest phasedConcurrentTest = PhasedConcurrentTest.create()
+			.withThreadNamePrefixFromClass(PhasedConcurrentTestTest.class)
+			.withPhase("first", index -> {
+				if (index == 3) {
+					throw new IllegalStateException("step failed");
+				}
+				return index;
+			})
+			.withPhase("second", index -> {
+				secondPhaseStarted.set(true);
+				return index;
+			});
+
+		assertThatThrownBy(phasedConcurrentTest::run)
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseMessage("step failed");
+		assertThat(secondPhaseStarted.get()).isFalse();
+	}
+
+	@Test
+	void shouldRejectConcurrencyLevelExceedingPhaserParties() {
+		assertThatThrownBy(() -> PhasedConcurrentTest.create().withConcurrencyLevel(65_535))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessage("Concurrency level must be between 1 and 65534 (the maximum number of parties of a Phaser): 65535");
+	}
+}
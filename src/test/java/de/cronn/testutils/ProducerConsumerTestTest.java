@@ -0,0 +1,98 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ProducerConsumerTestTest {
+
+	@Test
+	@Timeout(30)
+	void shouldProduceAndConsumeItemCount() throws ExecutionException, InterruptedException {
+		BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+		Set<Integer> consumedItems = ConcurrentHashMap.newKeySet();
+
+		ProducerConsumerReport report = ProducerConsumerTest.create(index -> {
+					queue.put(index);
+					return index;
+				}, consumerIndex -> {
+					Integer item = queue.poll(10, TimeUnit.MILLISECONDS);
+					if (item != null) {
+						consumedItems.add(item);
+					}
+					return item;
+				})
+			.withThreadNamePrefixFromClass(ProducerConsumerTestTest.class)
+			.withProducers(4)
+			.withConsumers(2)
+			.runForItemCount(10_000);
+
+		assertThat(consumedItems).hasSize(10_000);
+		assertThat(queue).isEmpty();
+		assertThat(report.getProducedItems()).isEqualTo(10_000);
+		assertThat(report.getConsumedItems()).isEqualTo(10_000);
+		assertThat(report.getHandoffLatencies().getTotalCount()).isEqualTo(10_000);
+		assertThat(report.getBacklogSamples()).isNotEmpty();
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldProduceForDurationAndDrainBacklog() throws ExecutionException, InterruptedException {
+		BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+
+		ProducerConsumerReport report = ProducerConsumerTest.create(index -> {
+					Thread.sleep(1);
+					queue.put(index);
+					return index;
+				}, consumerIndex -> {
+					Thread.sleep(2);
+					return queue.poll();
+				})
+			.withThreadNamePrefixFromClass(ProducerConsumerTestTest.class)
+			.withBacklogSamplingInterval(Duration.ofMillis(5))
+			.runFor(Duration.ofMillis(100));
+
+		assertThat(queue).isEmpty();
+		assertThat(report.getConsumedItems()).isEqualTo(report.getProducedItems());
+		assertThat(report.getMaxBacklog()).isPositive();
+		assertThat(report.getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+	}
+
+	@Test
+	@Timeout(20)
+	void shouldInterruptBlockedConsumersAfterBacklogIsDrained() throws ExecutionException, InterruptedException {
+		BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+
+		ProducerConsumerReport report = ProducerConsumerTest.create(index -> {
+					queue.put(index);
+					return index;
+				}, consumerIndex -> queue.take())
+			.withThreadNamePrefixFromClass(ProducerConsumerTestTest.class)
+			.withConsumers(4)
+			.runForItemCount(1_000);
+
+		assertThat(queue).isEmpty();
+		assertThat(report.getConsumedItems()).isEqualTo(1_000);
+	}
+
+	@Test
+	@Timeout(30)
+	void shouldFailIfConsumerFails() {
+		ProducerConsumerTest<Integer> producerConsumerTest = ProducerConsumerTest.create(index -> index, consumerIndex -> {
+			throw new IllegalStateException("consumer failed");
+		}).withThreadNamePrefixFromClass(ProducerConsumerTestTest.class);
+
+		assertThatThrownBy(() -> producerConsumerTest.runForItemCount(10))
+			.isInstanceOf(ExecutionException.class)
+			.hasRootCauseMessage("consumer failed");
+	}
+}
@@ -0,0 +1,53 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ScalabilityReportTest {
+
+	@Test
+	void shouldFitUniversalScalabilityLaw() {
+		List<Integer> concurrencyLevels = List.of(1, 2, 4, 8, 16, 32);
+		List<Double> throughputs = new ArrayList<>();
+		for (int n : concurrencyLevels) {
+			throughputs.add(1000.0 * n / (1 + 0.05 * (n - 1) + 0.001 * n * (n - 1)));
+		}
+
+		ScalabilityReport report = new ScalabilityReport(concurrencyLevels, throughputs);
+
+		assertThat(report.getContention()).isCloseTo(0.05, within(1e-9));
+		assertThat(report.getCoherency()).isCloseTo(0.001, within(1e-9));
+		assertThat(report.getPeakConcurrencyLevel()).isCloseTo(Math.sqrt(0.95 / 0.001), within(1e-6));
+		assertThat(report.getLevels().get(1).speedup()).isCloseTo(2 / 1.052, within(1e-9));
+	}
+
+	@Test
+	void shouldReportLinearScaling() {
+		ScalabilityReport report = new ScalabilityReport(List.of(1, 2, 4), List.of(100.0, 200.0, 400.0));
+
+		assertThat(report.getContention()).isCloseTo(0, within(1e-9));
+		assertThat(report.getCoherency()).isCloseTo(0, within(1e-9));
+		assertThat(report.getPeakConcurrencyLevel()).isEqualTo(Double.POSITIVE_INFINITY);
+		assertThat(report.toMarkdownTable()).isEqualTo("""
+			| Concurrency | Throughput [calls/s] | Speedup | Efficiency |
+			|------------:|---------------------:|--------:|-----------:|
+			| 1 | 100.0 | 1.00 | 100.0 % |
+			| 2 | 200.0 | 2.00 | 100.0 % |
+			| 4 | 400.0 | 4.00 | 100.0 % |
+
+			USL fit: σ (contention) = 0.00000, κ (coherency) = 0.000000, peak concurrency ≈ Infinity
+			""");
+	}
+
+	@Test
+	void shouldFitContentionOnlyWithTwoLevels() {
+		ScalabilityReport report = new ScalabilityReport(List.of(1, 2), List.of(100.0, 150.0));
+
+		assertThat(report.getContention()).isCloseTo(1.0 / 3, within(1e-9));
+		assertThat(report.getCoherency()).isZero();
+	}
+}
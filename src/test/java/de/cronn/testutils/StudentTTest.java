@@ -0,0 +1,17 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class StudentTTest {
+
+	@Test
+	void shouldCalculateCumulativeProbability() {
+		assertThat(StudentT.cumulativeProbability(0, 5)).isCloseTo(0.5, within(1e-9));
+		assertThat(StudentT.cumulativeProbability(2.015, 5)).isCloseTo(0.95, within(1e-3));
+		assertThat(StudentT.cumulativeProbability(-2.015, 5)).isCloseTo(0.05, within(1e-3));
+		assertThat(StudentT.cumulativeProbability(1.645, 1e6)).isCloseTo(0.95, within(1e-3));
+		assertThat(StudentT.cumulativeProbability(12.706, 1)).isCloseTo(0.975, within(1e-3));
+	}
+}
@@ -0,0 +1,128 @@
+package de.cronn.testutils;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(ThreadLeakCheck.class)
+class TaskScopeExtensionTest {
+
+    @RegisterExtension
+    TaskScopeExtension taskScope = new TaskScopeExtension(Duration.ofSeconds(10));
+
+    @Test
+    void testSubtasksRunOnNamedVirtualThreads() throws Exception {
+        Future<Thread> thread = taskScope.fork(Thread::currentThread);
+
+        taskScope.join();
+
+        assertThat(thread.resultNow().isVirtual()).isTrue();
+        assertThat(thread.resultNow().getName()).isEqualTo("TaskScopeExtensionTest_testSubtasksRunOnNamedVirtualThreads-1");
+    }
+
+    @Test
+    void testShutdownOnFailureCancelsSiblings() {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        Future<Void> hangingSubtask = taskScope.fork(() -> {
+            neverReleased.await();
+            return null;
+        });
+        taskScope.fork(() -> {
+            throw new IllegalStateException("expected failure");
+        });
+
+        assertThatThrownBy(taskScope::join)
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("expected failure");
+        assertThat(hangingSubtask.isCancelled()).isTrue();
+        assertThat(taskScope.fork(() -> "too late").isCancelled()).isTrue();
+    }
+
+    @Test
+    void testResultRequiresShutdownOnSuccess() throws Exception {
+        taskScope.fork(() -> "success");
+        taskScope.join();
+
+        assertThatThrownBy(taskScope::result)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("result() requires a scope that shuts down on success");
+    }
+
+    @Nested
+    class ShutdownOnSuccess {
+
+        @RegisterExtension
+        TaskScopeExtension taskScope = new TaskScopeExtension(Duration.ofSeconds(10)).withShutdownOnSuccess();
+
+        @Test
+        void testFirstSuccessCancelsSiblings() throws Exception {
+            CountDownLatch neverReleased = new CountDownLatch(1);
+            Future<String> hangingSubtask = taskScope.fork(() -> {
+                neverReleased.await();
+                return "slow";
+            });
+            taskScope.fork(() -> {
+                throw new IllegalStateException("ignored failure");
+            });
+            Future<String> fastSubtask = taskScope.fork(() -> "fast");
+
+            taskScope.join();
+
+            assertThat(fastSubtask.resultNow()).isEqualTo("fast");
+            assertThat(hangingSubtask.isCancelled()).isTrue();
+            assertThat(taskScope.<String>result()).isEqualTo("fast");
+        }
+
+        @Test
+        void testResultFailsIfNoSubtaskSucceeded() {
+            taskScope.fork(() -> {
+                throw new IllegalStateException("first failure");
+            });
+
+            assertThatThrownBy(taskScope::join)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("first failure");
+            assertThatThrownBy(taskScope::result)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("first failure");
+        }
+
+        @Test
+        void testResultFailsIfNoSubtaskCompleted() {
+            assertThatThrownBy(taskScope::result)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("No subtask of 'TaskScopeExtensionTest_ShutdownOnSuccess_testResultFailsIfNoSubtaskCompleted' completed");
+        }
+    }
+
+    @Nested
+    class Deadline {
+
+        @RegisterExtension
+        TaskScopeExtension taskScope = new TaskScopeExtension(Duration.ofMillis(200));
+
+        @Test
+        void testJoinFailsAfterTestTimeout() {
+            CountDownLatch neverReleased = new CountDownLatch(1);
+            Future<Void> hangingSubtask = taskScope.fork(() -> {
+                neverReleased.await();
+                return null;
+            });
+
+            assertThatThrownBy(taskScope::join)
+                    .isInstanceOf(TimeoutException.class)
+                    .hasMessage("1 subtasks of 'TaskScopeExtensionTest_Deadline_testJoinFailsAfterTestTimeout' did not complete within 200 ms");
+            assertThat(hangingSubtask.isCancelled()).isTrue();
+        }
+    }
+}
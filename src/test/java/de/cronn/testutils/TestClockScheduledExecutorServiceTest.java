@@ -0,0 +1,144 @@
+package de.cronn.testutils;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TestClockScheduledExecutorServiceTest {
+
+	private static final Instant BEGIN_OF_2016_INSTANT = Instant.parse("2016-01-01T00:00:00.123456Z");
+
+	private final TestClock testClock = TestClock.defaultUtc();
+	private final TestClockScheduledExecutorService executorService = new TestClockScheduledExecutorService(testClock);
+
+	@Test
+	void shouldRunDelayedTaskWhenClockPassesDueInstant() throws Exception {
+		ScheduledFuture<Instant> future = executorService.schedule(testClock::instant, 30, TimeUnit.MINUTES);
+
+		testClock.windForward(Duration.ofMinutes(29));
+		assertThat(future.isDone()).isFalse();
+		assertThat(future.getDelay(TimeUnit.MINUTES)).isEqualTo(1);
+
+		testClock.windForwardHours(1);
+
+		assertThat(future.get()).isEqualTo(Instant.parse("2016-01-01T00:30:00.123456Z"));
+		assertThat(testClock.instant()).isEqualTo(Instant.parse("2016-01-01T01:29:00.123456Z"));
+	}
+
+	@Test
+	void shouldRunTasksThatAreDueImmediately() throws Exception {
+		Future<String> future = executorService.submit(() -> "done");
+
+		assertThat(future.isDone()).isTrue();
+		assertThat(future.get()).isEqualTo("done");
+	}
+
+	@Test
+	void shouldRunFixedRateTaskForEveryPeriod() {
+		List<Instant> executions = new ArrayList<>();
+		executorService.scheduleAtFixedRate(() -> executions.add(testClock.instant()), 1, 1, TimeUnit.HOURS);
+
+		testClock.windForwardToDate(LocalDate.parse("2016-01-02"));
+
+		assertThat(executions).hasSize(24);
+		assertThat(executions.get(0)).isEqualTo(Instant.parse("2016-01-01T01:00:00.123456Z"));
+		assertThat(executions.get(23)).isEqualTo(Instant.parse("2016-01-02T00:00:00.123456Z"));
+	}
+
+	@Test
+	void shouldRunRetriesScheduledByTasksRelativeToTheirDueInstant() {
+		List<Instant> attempts = new ArrayList<>();
+		Runnable attempt = new Runnable() {
+			@Override
+			public void run() {
+				attempts.add(testClock.instant());
+				if (attempts.size() < 5) {
+					executorService.schedule(this, 1L << attempts.size(), TimeUnit.HOURS);
+				}
+			}
+		};
+		executorService.execute(attempt);
+
+		testClock.windForward(Duration.ofDays(2));
+
+		assertThat(attempts).containsExactly(
+			BEGIN_OF_2016_INSTANT,
+			Instant.parse("2016-01-01T02:00:00.123456Z"),
+			Instant.parse("2016-01-01T06:00:00.123456Z"),
+			Instant.parse("2016-01-01T14:00:00.123456Z"),
+			Instant.parse("2016-01-02T06:00:00.123456Z"));
+		assertThat(executorService.getQueueSize()).isZero();
+	}
+
+	@Test
+	void shouldNotWindClockBackAfterTaskWoundItForward() {
+		List<Instant> executions = new ArrayList<>();
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				executions.add(testClock.instant());
+				if (executions.size() == 1) {
+					executorService.schedule(this, 30, TimeUnit.MINUTES);
+					testClock.windForwardHours(2);
+				}
+			}
+		};
+		executorService.schedule(task, 1, TimeUnit.HOURS);
+
+		Instant windForwardResult = testClock.windForward(Duration.ofMinutes(90));
+
+		assertThat(executions).containsExactly(
+			Instant.parse("2016-01-01T01:00:00.123456Z"),
+			Instant.parse("2016-01-01T01:30:00.123456Z"));
+		assertThat(testClock.instant()).isEqualTo(Instant.parse("2016-01-01T03:00:00.123456Z"));
+		assertThat(windForwardResult).isEqualTo(testClock.instant());
+		assertThat(executorService.getQueueSize()).isZero();
+	}
+
+	@Test
+	void shouldNotRunCancelledTasks() {
+		List<String> executions = new ArrayList<>();
+		ScheduledFuture<?> cancelled = executorService.schedule(() -> executions.add("cancelled"), 1, TimeUnit.SECONDS);
+		executorService.schedule(() -> executions.add("second"), 2, TimeUnit.SECONDS);
+		executorService.schedule(() -> executions.add("first"), 1, TimeUnit.SECONDS);
+
+		assertThat(cancelled.cancel(false)).isTrue();
+		testClock.windForwardSeconds(2);
+
+		assertThat(executions).containsExactly("first", "second");
+	}
+
+	@Test
+	void shouldReturnPendingTasksOnShutdownNow() throws Exception {
+		executorService.schedule(() -> "pending", 1, TimeUnit.DAYS);
+
+		assertThat(executorService.shutdownNow()).hasSize(1);
+		assertThat(executorService.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+		assertThatThrownBy(() -> executorService.submit(() -> "rejected"))
+			.isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	void shouldStopFollowingClockWhenClosed() {
+		List<String> executions = new ArrayList<>();
+		TestClockScheduledExecutorService closedExecutorService = new TestClockScheduledExecutorService(testClock);
+		try (closedExecutorService) {
+			closedExecutorService.schedule(() -> executions.add("discarded"), 1, TimeUnit.HOURS);
+		}
+
+		testClock.windForwardHours(2);
+
+		assertThat(executions).isEmpty();
+		assertThat(closedExecutorService.isTerminated()).isTrue();
+	}
+}